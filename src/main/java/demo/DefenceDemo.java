@@ -10,6 +10,7 @@ import statements.annotations.StatementsAnnotation;
 import statements.core.Statement;
 import statements.core.StatementComponent;
 import statements.core.StatementUtils;
+import statements.patterns.MatchResult;
 import statements.patterns.StatementPattern;
 import statements.patterns.SubjectPattern;
 import statements.patterns.VerbPattern;
@@ -53,8 +54,9 @@ public class DefenceDemo {
             StatementUtils.printStatements(statements);
 
             for (Statement statement : statements) {
-                if (happenPattern.matches(statement)) {
-                    capturedComponents.addAll(happenPattern.getCaptures());
+                MatchResult happenMatch = happenPattern.match(statement);
+                if (happenMatch.matches()) {
+                    capturedComponents.addAll(happenMatch.getCaptures());
                 }
             }
         }
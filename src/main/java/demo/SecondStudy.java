@@ -12,6 +12,7 @@ import reddit.RedditCommentProcessor;
 import statements.annotations.StatementsAnnotation;
 import statements.core.Statement;
 import statements.profile.Profile;
+import statements.profile.ProfileComparisonCache;
 
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -126,23 +127,25 @@ public class SecondStudy {
         writer.println();
 
         int limit = 50;
-        List<Statement> statementsByQuality = participantProfile.getStatementsByQuality();
+        List<Statement> statementsByQuality = participantProfile.getStatementsByQuality(limit);
         writer.println("Top " + limit + " statements from "+ participant + " by quality");
 
-        for (int i = 0; i < statementsByQuality.size() && i < limit; i++) {
+        for (int i = 0; i < statementsByQuality.size(); i++) {
             writer.println(statementsByQuality.get(i).getOrigin());
         }
 
+        ProfileComparisonCache comparisons = new ProfileComparisonCache(users.length);
+
         for (String user : users) {
             writer.println();
             Profile userProfile = createProfile(user, true, writer);
 
-            Profile.RelevanceComparator relevanceComparator = new Profile.RelevanceComparator(participantProfile, userProfile);
+            Profile.RelevanceComparator relevanceComparator = comparisons.getRelevanceComparator(participantProfile, userProfile);
             List<Statement> statementsByRelevance = userProfile.getStatementsByRelevance(relevanceComparator);
 
             writer.println();
-            writer.println("common entities:" + participantProfile.getCommonEntities(userProfile));
-            writer.println("common activities:" + participantProfile.getCommonActivities(userProfile));
+            writer.println("common entities:" + comparisons.getCommonEntities(participantProfile, userProfile));
+            writer.println("common activities:" + comparisons.getCommonActivities(participantProfile, userProfile));
             writer.println("Statements from "+ user + " by relevance to " + participant);
 
             for (int i = 0; i < statementsByRelevance.size(); i++) {
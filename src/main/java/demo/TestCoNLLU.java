@@ -0,0 +1,36 @@
+package demo;
+
+import edu.stanford.nlp.util.CoreMap;
+import statements.annotations.StatementsAnnotation;
+import statements.conllu.CoNLLUReader;
+import statements.core.Statement;
+import statements.core.StatementFinder;
+import statements.core.StatementUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+
+public class TestCoNLLU {
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong count = new AtomicLong();
+
+        try (Stream<CoreMap> sentences = CoNLLUReader.stream(Paths.get(args[0]))) {
+            StatementFinder.findAll(sentences).forEachOrdered(sentence -> {
+                Set<Statement> statements = sentence.get(StatementsAnnotation.class);
+
+                if (statements != null) {
+                    System.out.println(sentence);
+                    StatementUtils.printStatements(statements);
+                    count.addAndGet(statements.size());
+                }
+            });
+        }
+
+        System.out.println("found " + count + " statements in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
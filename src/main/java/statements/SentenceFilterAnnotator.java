@@ -0,0 +1,105 @@
+package statements;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.Annotator;
+import edu.stanford.nlp.util.CoreMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import statements.annotations.SkippedSentencesAnnotation;
+import statements.patterns.SentenceFilter;
+import statements.patterns.StatementPattern;
+import statements.profile.Profile;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes sentences that cannot contain statements matching a set of patterns.
+ * Must be placed after the lemma annotator and before the depparse annotator in the pipeline, e.g.
+ *      "tokenize, ssplit, pos, lemma, filter, depparse, statements"
+ * which allows the dependency parsing and statement extraction to be skipped for most sentences.
+ *
+ * The removed sentences are kept in the SkippedSentencesAnnotation of the document.
+ * By default, the entity patterns of the Profile class are used.
+ */
+public class SentenceFilterAnnotator implements Annotator {
+    public final static String FILTERED = "filtered";
+    final Logger logger = LoggerFactory.getLogger(SentenceFilterAnnotator.class);
+
+    private final SentenceFilter filter;
+    private final AtomicLong keptCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * Constructor used by the CoreNLP pipeline, see the StatementAnnotator constructor.
+     * @param properties
+     */
+    public SentenceFilterAnnotator(String name, Properties properties) {
+        this(Profile.ENTITY_PATTERNS);
+    }
+
+    /**
+     * Filter sentences based on custom patterns.
+     * @param patterns the patterns that sentences must be able to match
+     */
+    public SentenceFilterAnnotator(Collection<StatementPattern> patterns) {
+        filter = new SentenceFilter(patterns);
+        logger.info("filtering sentences using requirements: " + filter);
+    }
+
+    @Override
+    public void annotate(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        List<CoreMap> keptSentences = new ArrayList<>();
+        List<CoreMap> skippedSentences = new ArrayList<>();
+
+        for (CoreMap sentence : sentences) {
+            if (filter.keep(sentence)) {
+                keptSentences.add(sentence);
+            } else {
+                skippedSentences.add(sentence);
+            }
+        }
+
+        annotation.set(CoreAnnotations.SentencesAnnotation.class, keptSentences);
+        annotation.set(SkippedSentencesAnnotation.class, skippedSentences);
+
+        keptCount.addAndGet(keptSentences.size());
+        skippedCount.addAndGet(skippedSentences.size());
+        logger.info("sentences kept: " + keptSentences.size() + ", skipped: " + skippedSentences.size());
+    }
+
+    /**
+     * The total number of sentences kept by this annotator.
+     *
+     * @return kept sentences
+     */
+    public long getKeptCount() {
+        return keptCount.get();
+    }
+
+    /**
+     * The total number of sentences skipped by this annotator.
+     *
+     * @return skipped sentences
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    @Override
+    public Set<Requirement> requirementsSatisfied() {
+        Set<Requirement> requirementsSatisfied = new HashSet<>();
+        requirementsSatisfied.add(new Requirement(FILTERED));
+        return requirementsSatisfied;
+    }
+
+    @Override
+    public Set<Requirement> requires() {
+        Set<Requirement> requirements = new HashSet<>();
+        // TODO: same issue as in StatementAnnotator, the lemma annotator is required
+//        requirements.add(Annotator.LEMMA_REQUIREMENT);
+        return requirements;
+    }
+}
@@ -19,6 +19,13 @@ public class StatementAnnotator implements Annotator {
     public final static String STATEMENT = "statement";
     final Logger logger = LoggerFactory.getLogger(StatementAnnotator.class);
 
+    /**
+     * The budget for each sentence, 0 means no limit.
+     * Set using the properties "statements.maxTokens" and "statements.maxMillis".
+     */
+    private final int maxTokens;
+    private final long maxMillis;
+
     /**
      * This constructor allows for the annotator to accept different properties to alter its behaviour.
      * It doesn't seem to be documented anywhere, but a method in AnnotatorImplementations.java with signature
@@ -28,6 +35,8 @@ public class StatementAnnotator implements Annotator {
      */
     public StatementAnnotator(String name, Properties properties) {
         String prefix = (name != null && !name.isEmpty())? name + ".":"";
+        maxTokens = Integer.parseInt(properties.getProperty(prefix + "maxTokens", "0"));
+        maxMillis = Long.parseLong(properties.getProperty(prefix + "maxMillis", "0"));
     }
 
     @Override
@@ -36,7 +45,7 @@ public class StatementAnnotator implements Annotator {
 
         for (CoreMap sentence : sentences) {
             logger.info("checking sentence for statements: " + sentence);
-            Set<Statement> statements = StatementFinder.find(sentence);
+            Set<Statement> statements = StatementFinder.find(sentence, maxTokens, maxMillis);
             if (statements != null && statements.size() > 0) {
                 logger.info("statements found: " + statements);
                 sentence.set(StatementsAnnotation.class, statements);
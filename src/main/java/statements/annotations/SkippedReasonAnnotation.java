@@ -0,0 +1,12 @@
+package statements.annotations;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+
+/**
+ * Annotation for sentences that were skipped by the StatementFinder, containing the reason (see Labels).
+ */
+public class SkippedReasonAnnotation implements CoreAnnotation<String> {
+    public Class<String> getType() {
+        return String.class;
+    }
+}
@@ -0,0 +1,16 @@
+package statements.annotations;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.ErasureUtils;
+
+import java.util.List;
+
+/**
+ * Annotation for the sentences of a document that were removed before parsing by the SentenceFilterAnnotator.
+ */
+public class SkippedSentencesAnnotation implements CoreAnnotation<List<CoreMap>> {
+    public Class<List<CoreMap>> getType() {
+        return ErasureUtils.<Class<List<CoreMap>>>uncheckedCast(List.class);
+    }
+}
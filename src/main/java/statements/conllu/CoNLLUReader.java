@@ -0,0 +1,290 @@
+package statements.conllu;
+
+import edu.stanford.nlp.international.Language;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+import edu.stanford.nlp.trees.UniversalEnglishGrammaticalRelations;
+import edu.stanford.nlp.util.CoreMap;
+import statements.core.PartsOfSpeech;
+import statements.core.Relations;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams sentences from a CoNLL-U file as CoreMaps that can be given directly to the StatementFinder.
+ * This makes it possible to find statements in corpora that have already been parsed elsewhere.
+ *
+ * Each sentence contains the same annotations that the StatementFinder relies on from the CoreNLP pipeline:
+ * tokens, text and a SemanticGraph stored as CollapsedCCProcessedDependenciesAnnotation.
+ * The graph is built from the basic dependencies of the file.
+ * Prepositions are collapsed into nmod relations (e.g. nmod:in), but the CC-processing done by CoreNLP
+ * (propagating dependents across conjuncts) is not reproduced.
+ *
+ * Universal Dependencies v2 relation names are mapped to the v1 names used in Relations,
+ * and the XPOS column is used as the part-of-speech tag (falling back to a mapping of the UPOS column).
+ */
+public class CoNLLUReader implements Iterator<CoreMap>, Closeable {
+    private static final String EMPTY = "_";
+    private static final String TEXT_COMMENT = "# text = ";
+    private static final String SENT_ID_COMMENT = "# sent_id = ";
+
+    /**
+     * Relations renamed between UD v1 and v2.
+     */
+    private static final Map<String, String> V2_RELATIONS = new HashMap<>();
+    static {
+        V2_RELATIONS.put("obj", Relations.DOBJ);
+        V2_RELATIONS.put("nsubj:pass", Relations.NSUBJPASS);
+        V2_RELATIONS.put("csubj:pass", "csubjpass");
+        V2_RELATIONS.put("aux:pass", "auxpass");
+        V2_RELATIONS.put("obl", Relations.NMOD);
+        V2_RELATIONS.put("obl:tmod", "nmod:tmod");
+        V2_RELATIONS.put("obl:npmod", "nmod:npmod");
+        V2_RELATIONS.put("flat", "mwe");
+        V2_RELATIONS.put("flat:name", "name");
+        V2_RELATIONS.put("fixed", "mwe");
+    }
+
+    /**
+     * Rough Penn Treebank replacements for the universal part-of-speech tags.
+     * Only used when the XPOS column is empty.
+     */
+    private static final Map<String, String> UPOS_TAGS = new HashMap<>();
+    static {
+        UPOS_TAGS.put("ADJ", PartsOfSpeech.JJ);
+        UPOS_TAGS.put("ADP", "IN");
+        UPOS_TAGS.put("ADV", PartsOfSpeech.RB);
+        UPOS_TAGS.put("AUX", PartsOfSpeech.VB);
+        UPOS_TAGS.put("CCONJ", "CC");
+        UPOS_TAGS.put("CONJ", "CC");
+        UPOS_TAGS.put("DET", "DT");
+        UPOS_TAGS.put("INTJ", PartsOfSpeech.UH);
+        UPOS_TAGS.put("NOUN", PartsOfSpeech.NN);
+        UPOS_TAGS.put("NUM", "CD");
+        UPOS_TAGS.put("PART", "RP");
+        UPOS_TAGS.put("PRON", PartsOfSpeech.PRP);
+        UPOS_TAGS.put("PROPN", PartsOfSpeech.NNP);
+        UPOS_TAGS.put("PUNCT", ".");
+        UPOS_TAGS.put("SCONJ", "IN");
+        UPOS_TAGS.put("SYM", "SYM");
+        UPOS_TAGS.put("VERB", PartsOfSpeech.VB);
+        UPOS_TAGS.put("X", "FW");
+    }
+
+    private final BufferedReader reader;
+    private final String docID;
+    private int sentenceIndex = 0;
+    private CoreMap next;
+
+    /**
+     * Read sentences from a reader.
+     *
+     * @param reader the CoNLL-U input
+     * @param docID the document id given to every token (used to keep tokens of different sentences apart)
+     */
+    public CoNLLUReader(BufferedReader reader, String docID) {
+        this.reader = reader;
+        this.docID = docID;
+    }
+
+    /**
+     * Lazily stream the sentences of a CoNLL-U file.
+     * The file is closed when the stream is closed.
+     *
+     * @param path the CoNLL-U file
+     * @return sentences
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<CoreMap> stream(Path path) throws IOException {
+        CoNLLUReader conlluReader = new CoNLLUReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), path.getFileName().toString());
+        Spliterator<CoreMap> spliterator = Spliterators.spliteratorUnknownSize(conlluReader, Spliterator.ORDERED | Spliterator.NONNULL);
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                conlluReader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readSentence();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public CoreMap next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        CoreMap sentence = next;
+        next = null;
+        return sentence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Read the lines of the next sentence and build a CoreMap from them.
+     *
+     * @return the next sentence or null at the end of the input
+     * @throws IOException
+     */
+    private CoreMap readSentence() throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String text = null;
+        String sentenceID = null;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                if (!rows.isEmpty()) break;
+            } else if (line.startsWith("#")) {
+                if (line.startsWith(TEXT_COMMENT)) text = line.substring(TEXT_COMMENT.length());
+                if (line.startsWith(SENT_ID_COMMENT)) sentenceID = line.substring(SENT_ID_COMMENT.length());
+            } else {
+                String[] fields = line.split("\t");
+
+                // multi-word token ranges (1-2) and empty nodes (1.1) are not part of the basic tree
+                if (fields.length >= 8 && !fields[0].contains("-") && !fields[0].contains(".")) rows.add(fields);
+            }
+        }
+
+        if (rows.isEmpty()) return null;
+
+        return makeSentence(rows, text, sentenceID);
+    }
+
+    /**
+     * Build the tokens and dependency graph of a sentence.
+     *
+     * @param rows the token rows of the sentence
+     * @param text the text of the sentence (if given in the file)
+     * @param sentenceID the id of the sentence (if given in the file)
+     * @return sentence
+     */
+    private CoreMap makeSentence(List<String[]> rows, String text, String sentenceID) {
+        List<CoreLabel> tokens = new ArrayList<>();
+        Map<Integer, IndexedWord> words = new HashMap<>();
+
+        for (String[] fields : rows) {
+            int index = Integer.parseInt(fields[0]);
+            String form = fields[1];
+            String lemma = !fields[2].equals(EMPTY)? fields[2] : form;
+
+            CoreLabel token = new CoreLabel();
+            token.setWord(form);
+            token.setValue(form);
+            token.setOriginalText(form);
+            token.setLemma(lemma);
+            token.setTag(getTag(form, fields[3], fields[4], fields[5]));
+            token.setIndex(index);
+            token.setSentIndex(sentenceIndex);
+            token.setDocID(docID);
+            tokens.add(token);
+            words.put(index, new IndexedWord(token));
+        }
+
+        SemanticGraph graph = new SemanticGraph();
+        for (IndexedWord word : words.values()) graph.addVertex(word);
+
+        for (String[] fields : rows) {
+            IndexedWord dependent = words.get(Integer.parseInt(fields[0]));
+            int head = Integer.parseInt(fields[6]);
+            String relation = V2_RELATIONS.getOrDefault(fields[7], fields[7]);
+
+            // v2 has no neg relation, negations are marked with a feature instead
+            if (relation.equals("advmod") && fields[5].contains("Polarity=Neg")) relation = Relations.NEG;
+
+            if (head == 0) {
+                graph.addRoot(dependent);
+            } else if (words.containsKey(head)) {
+                graph.addEdge(words.get(head), dependent, getRelation(relation, dependent, rows, words), 1.0, false);
+            }
+        }
+
+        if (text == null) {
+            List<String> forms = new ArrayList<>();
+            for (CoreLabel token : tokens) forms.add(token.word());
+            text = String.join(" ", forms);
+        }
+
+        Annotation sentence = new Annotation(text);
+        sentence.set(CoreAnnotations.TokensAnnotation.class, tokens);
+        sentence.set(CoreAnnotations.SentenceIndexAnnotation.class, sentenceIndex);
+        sentence.set(CoreAnnotations.DocIDAnnotation.class, docID);
+        if (sentenceID != null) sentence.set(CoreAnnotations.SentenceIDAnnotation.class, sentenceID);
+        sentence.set(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class, graph);
+        sentence.set(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class, graph);
+        sentenceIndex++;
+
+        return sentence;
+    }
+
+    /**
+     * The grammatical relation of a dependency.
+     * Prepositions are collapsed into the nmod relation, similar to the collapsed dependencies of CoreNLP.
+     *
+     * @param relation the (v1) name of the relation
+     * @param dependent the dependent of the relation
+     * @param rows the token rows of the sentence
+     * @param words the words of the sentence by index
+     * @return grammatical relation
+     */
+    private static GrammaticalRelation getRelation(String relation, IndexedWord dependent, List<String[]> rows, Map<Integer, IndexedWord> words) {
+        if (relation.equals(Relations.NMOD)) {
+            for (String[] fields : rows) {
+                if (fields[7].equals(Relations.CASE) && Integer.parseInt(fields[6]) == dependent.index()) {
+                    return UniversalEnglishGrammaticalRelations.getNmod(words.get(Integer.parseInt(fields[0])).lemma().toLowerCase());
+                }
+            }
+        }
+
+        return GrammaticalRelation.valueOf(Language.UniversalEnglish, relation);
+    }
+
+    /**
+     * The Penn Treebank tag of a token.
+     *
+     * @param form the word form
+     * @param upos the universal part-of-speech tag
+     * @param xpos the language specific part-of-speech tag
+     * @param features the morphological features
+     * @return tag
+     */
+    private static String getTag(String form, String upos, String xpos, String features) {
+        if (!xpos.equals(EMPTY)) return xpos;
+
+        boolean plural = features.contains("Number=Plur");
+        if (upos.equals("NOUN") && plural) return PartsOfSpeech.NNS;
+        if (upos.equals("PROPN") && plural) return PartsOfSpeech.NNPS;
+        if (upos.equals("PRON") && features.contains("Poss=Yes")) return PartsOfSpeech.PRP$;
+        if (upos.equals("PUNCT") && form.equals(",")) return ",";
+
+        return UPOS_TAGS.getOrDefault(upos, upos);
+    }
+}
@@ -62,12 +62,30 @@ public abstract class AbstractComponent implements StatementComponent {
     protected final Set<IndexedWord> normalCompound;
     protected final Set<IndexedWord> otherDescriptives;  // used to store descriptive/clausal type content not fitting other categories
 
+    // the lexical features of the tokens in the sentence, indexed by token index
+    private final int[] tokenFlags;
+
+    // the features of the component itself, computed the first time they are needed (see Features)
+    private volatile long features;
+
+    // the normal compound and head lemma interned in the Vocabulary
+    private final int normalCompoundId;
+    private final int headLemmaId;
+
+    // index-ordered views of the sets above, used when joining words into strings
+    private final OrderedWords orderedCompound;
+    private final OrderedWords orderedHeadCompound;
+    private final OrderedWords orderedNormalCompound;
+    private final OrderedWords orderedPrepositions;
+    private final OrderedWords orderedPossessives;
+
     public AbstractComponent(IndexedWord head, SemanticGraph graph) {
        this(head, graph, new HashSet<>());
     }
 
     public AbstractComponent(IndexedWord head, SemanticGraph graph, Set<String> labels) {
         this.head = head;
+        tokenFlags = TokenFlags.of(head, graph);
         compound = StatementUtils.findCompound(head, graph, getIgnoredRelations(), null);
 
         // remove interjections based on POS tags
@@ -156,6 +174,16 @@ public abstract class AbstractComponent implements StatementComponent {
         }
 
         this.labels = labels;
+
+        orderedCompound = new OrderedWords(compound);
+        orderedHeadCompound = new OrderedWords(headCompound);
+        orderedNormalCompound = new OrderedWords(normalCompound);
+        orderedPrepositions = new OrderedWords(prepositions);
+        orderedPossessives = new OrderedWords(possessives);
+
+        // the words matched by patterns are interned once, so that they can be matched by id
+        normalCompoundId = Vocabulary.getId(getNormalCompound());
+        headLemmaId = head.lemma() != null? Vocabulary.getId(head.lemma().toLowerCase()) : -1;
     }
 
     /**
@@ -166,11 +194,38 @@ public abstract class AbstractComponent implements StatementComponent {
     }
 
     public String getHeadCompound() {
-        return StatementUtils.join(headCompound, true, true);
+        return orderedHeadCompound.join(true, true);
     }
 
     public String getNormalCompound() {
-        return StatementUtils.join(normalCompound, true, true);
+        return orderedNormalCompound.join(true, true);
+    }
+
+    /**
+     * The id of the normal compound in the Vocabulary.
+     *
+     * @return id
+     */
+    public int getNormalCompoundId() {
+        return normalCompoundId;
+    }
+
+    /**
+     * The id of the lowercase lemma of the head word in the Vocabulary.
+     *
+     * @return id, or -1 if the head word has no lemma
+     */
+    public int getHeadLemmaId() {
+        return headLemmaId;
+    }
+
+    /**
+     * Every main word of the component sorted by index.
+     *
+     * @return sorted compound
+     */
+    public IndexedWord[] getOrderedCompound() {
+        return orderedCompound.get();
     }
 
     /**
@@ -345,6 +400,51 @@ public abstract class AbstractComponent implements StatementComponent {
         return negations.size() % 2 != 0;
     }
 
+    /**
+     * Whether a word of this component has a flag.
+     *
+     * @param word the word to check
+     * @param flag the flag, see TokenFlags
+     * @return true if the word has the flag
+     */
+    private boolean hasFlag(IndexedWord word, int flag) {
+        int index = word.index();
+        int flags = index >= 0 && index < tokenFlags.length? tokenFlags[index] : TokenFlags.compute(word);
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Whether any of the words has a flag.
+     *
+     * @param words the words to check
+     * @param flag the flag, see TokenFlags
+     * @return true if one of the words has the flag
+     */
+    private boolean anyHasFlag(Set<IndexedWord> words, int flag) {
+        for (IndexedWord word : words) {
+            if (hasFlag(word, flag)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The features of this component packed into a single long.
+     * Computed once the component is complete, i.e. the first time a pattern is matched against it.
+     *
+     * @return features, see Features
+     */
+    public long getFeatures() {
+        long currentFeatures = features;
+
+        if (currentFeatures == 0) {
+            currentFeatures = Features.compute(this);
+            features = currentFeatures;
+        }
+
+        return currentFeatures;
+    }
+
     /**
      * Whether a component is plural.
      * Only applies to nouns (obviously).
@@ -352,7 +452,7 @@ public abstract class AbstractComponent implements StatementComponent {
      * @return true if plural
      */
     public boolean isPlural() {
-        return PartsOfSpeech.PLURAL.contains(getHead().tag()) || Lexicon.PLURAL_NON_NOUNS.contains(getHead().word().toLowerCase());
+        return hasFlag(head, TokenFlags.PLURAL);
     }
 
     /**
@@ -360,13 +460,7 @@ public abstract class AbstractComponent implements StatementComponent {
      * @return true if specific
      */
     public boolean isSpecific() {
-        for (IndexedWord word : determiners) {
-            if (Lexicon.SPECIFIC_DETERMINERS.contains(word.word().toLowerCase())) {
-                return true;
-            }
-        }
-
-       return false;
+        return anyHasFlag(determiners, TokenFlags.SPECIFIC_DETERMINER);
     }
 
     /**
@@ -376,13 +470,7 @@ public abstract class AbstractComponent implements StatementComponent {
      * @return true if specific
      */
     public boolean isLocal() {
-        for (IndexedWord determiner : determiners) {
-            if (Lexicon.LOCAL_DETERMINERS.contains(determiner.word().toLowerCase())) {
-                return true;
-            }
-        }
-
-        return false;
+        return anyHasFlag(determiners, TokenFlags.LOCAL_DETERMINER);
     }
 
     /**
@@ -393,44 +481,40 @@ public abstract class AbstractComponent implements StatementComponent {
      * @return true if capitalised
      */
     public boolean isCapitalised() {
-        for (IndexedWord word : normalCompound) {
-            if (Character.isUpperCase(word.word().charAt(0))) return true;
-        }
-
-        return false;
+        return anyHasFlag(normalCompound, TokenFlags.CAPITALISED);
     }
 
     public boolean isPronoun() {
         // TODO: what about possesives?
-        return getHead().tag().equals(PartsOfSpeech.PRP);
+        return hasFlag(head, TokenFlags.PRONOUN);
     }
 
     public boolean isProperNoun() {
-        return PartsOfSpeech.PROPER_NOUNS.contains(getHead().tag());
+        return hasFlag(head, TokenFlags.PROPER_NOUN);
     }
 
     public boolean isNoun() {
-        return PartsOfSpeech.NOUNS.contains(getHead().tag());
+        return hasFlag(head, TokenFlags.NOUN);
     }
 
     public boolean isVerb() {
-        return PartsOfSpeech.VERBS.contains(getHead().tag());
+        return hasFlag(head, TokenFlags.VERB);
     }
 
     public boolean isAdjective() {
-        return PartsOfSpeech.ADJECTIVES.contains(getHead().tag());
+        return hasFlag(head, TokenFlags.ADJECTIVE);
     }
 
     public boolean isAdverb() {
-        return PartsOfSpeech.ADVERBS.contains(getHead().tag());
+        return hasFlag(head, TokenFlags.ADVERB);
     }
 
     public boolean isFirstPerson() {
-        return isPronoun() && Lexicon.FIRST_PERSON.contains(getHead().word().toLowerCase());
+        return isPronoun() && hasFlag(head, TokenFlags.FIRST_PERSON);
     }
 
     public boolean isSecondPerson() {
-        return isPronoun() && Lexicon.SECOND_PERSON.contains(getHead().word().toLowerCase());
+        return isPronoun() && hasFlag(head, TokenFlags.SECOND_PERSON);
     }
 
     public boolean hasPossessive() {
@@ -438,23 +522,11 @@ public abstract class AbstractComponent implements StatementComponent {
     }
 
     public boolean hasFirstPersonPossessive() {
-        if (hasPossessive()) {
-            for (IndexedWord word : getPossessives()) {
-                if (Lexicon.FIRST_PERSON_POSSESSIVES.contains(word.word().toLowerCase())) return true;
-            }
-        }
-
-        return false;
+        return anyHasFlag(possessives, TokenFlags.FIRST_PERSON_POSSESSIVE);
     }
 
     public boolean hasSecondPersonPossessive() {
-        if (hasPossessive()) {
-            for (IndexedWord word : getPossessives()) {
-                if (Lexicon.SECOND_PERSON_POSSESSIVES.contains(word.word().toLowerCase())) return true;
-            }
-        }
-
-        return false;
+        return anyHasFlag(possessives, TokenFlags.SECOND_PERSON_POSSESSIVE);
     }
 
     public boolean hasThirdPersonPossessive() {
@@ -480,7 +552,11 @@ public abstract class AbstractComponent implements StatementComponent {
     }
 
     public boolean hasPosTags(Set<String> tags) {
-        return hasPosTags(tags.toArray(new String[tags.size()]));
+        for (IndexedWord word : getCompound()) {
+            if (tags.contains(word.tag())) return true;
+        }
+
+        return false;
     }
 
     public boolean hasDescription() {
@@ -493,8 +569,11 @@ public abstract class AbstractComponent implements StatementComponent {
      * @return the longest string possible
      */
     protected String getString() {
-        Set<IndexedWord> expandedCompound = getCompound();
-        expandedCompound.addAll(getNegations());
+        // the negations are added to the compound by the finder
+        if (compound.containsAll(negations)) return orderedCompound.join();
+
+        Set<IndexedWord> expandedCompound = new HashSet<>(compound);
+        expandedCompound.addAll(negations);
         return StatementUtils.join(expandedCompound);
     }
 
@@ -527,8 +606,8 @@ public abstract class AbstractComponent implements StatementComponent {
             getClass().getSimpleName() + ": \"" + getString() + "\"" +
 //            ", gaps: " + gaps() +  // TODO: remove after done debugging
             (!getDescriptives().isEmpty()? ", description: \"" + StatementUtils.join(getDescriptives()) + "\"" : "") +
-            (!getPrepositions().isEmpty()? ", preposition: \"" + StatementUtils.join(getPrepositions()) + "\"" : "") +
-            (!getPossessives().isEmpty()? ", possessive: \"" + StatementUtils.join(getPossessives()) + "\"" : "") +
+            (!getPrepositions().isEmpty()? ", preposition: \"" + orderedPrepositions.join() + "\"" : "") +
+            (!getPossessives().isEmpty()? ", possessive: \"" + orderedPossessives.join() + "\"" : "") +
 //            (!getPossessives().isEmpty()? ", possessive: \"" + getPossessives() + "\"" : "") +
 //            ", pos: \"" + getHead().tag() + "\"" +
 //            ", head: \"" + getHead() + "\"" +
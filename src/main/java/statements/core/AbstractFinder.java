@@ -49,6 +49,11 @@ public abstract class AbstractFinder {
         }
         components.removeAll(emptyComponents);
 
+        // the negations are displayed as part of the compound, e.g. "don't eat" rather than "do eat"
+        for (AbstractComponent component : components) {
+            component.getCompound().addAll(component.getNegations());
+        }
+
         logger.info("found: " + components);
 
         return components;
@@ -0,0 +1,99 @@
+package statements.core;
+
+/**
+ * The features of a component packed into the bits of a single long.
+ * Boolean features have a single bit, while features with several exclusive states (e.g. person)
+ * have one bit per state of which at most one is set.
+ * This way a check of several features is reduced to a mask and a comparison.
+ */
+public class Features {
+    // boolean features
+    public static final long NEGATED = 1L;
+    public static final long PLURAL = 1L << 1;
+    public static final long SPECIFIC = 1L << 2;
+    public static final long LOCAL = 1L << 3;
+    public static final long CAPITALISED = 1L << 4;
+    public static final long DESCRIPTION = 1L << 5;
+    public static final long PREPOSITION = 1L << 6;
+    public static final long COPULA = 1L << 7;  // only set for verbs
+
+    // the type of component
+    public static final long VERB_COMPONENT = 1L << 8;
+
+    // person (exactly one is set)
+    public static final long FIRST_PERSON = 1L << 16;
+    public static final long SECOND_PERSON = 1L << 17;
+    public static final long THIRD_PERSON = 1L << 18;
+
+    // possessive person (at most one is set)
+    public static final long FIRST_PERSON_POSSESSIVE = 1L << 19;
+    public static final long SECOND_PERSON_POSSESSIVE = 1L << 20;
+    public static final long THIRD_PERSON_POSSESSIVE = 1L << 21;
+
+    // part-of-speech of the head word (at most one is set)
+    public static final long PRONOUN = 1L << 24;
+    public static final long PROPER_NOUN = 1L << 25;
+    public static final long NOUN = 1L << 26;
+    public static final long VERB = 1L << 27;
+    public static final long ADJECTIVE = 1L << 28;
+    public static final long ADVERB = 1L << 29;
+
+    // marks the features as computed, since a component can legitimately have no other features
+    static final long COMPUTED = 1L << 63;
+
+    /**
+     * Compute the features of a component.
+     * The exclusive states are prioritised the same way as in the ComponentPattern checks they replace.
+     *
+     * @param component the component
+     * @return features
+     */
+    static long compute(AbstractComponent component) {
+        long features = COMPUTED;
+
+        if (component.isNegated()) features |= NEGATED;
+        if (component.isPlural()) features |= PLURAL;
+        if (component.isSpecific()) features |= SPECIFIC;
+        if (component.isLocal()) features |= LOCAL;
+        if (component.isCapitalised()) features |= CAPITALISED;
+        if (component.hasDescription()) features |= DESCRIPTION;
+        if (component.hasPreposition()) features |= PREPOSITION;
+
+        if (component instanceof Verb) {
+            features |= VERB_COMPONENT;
+            if (((Verb) component).isCopula()) features |= COPULA;
+        }
+
+        if (component.isFirstPerson()) {
+            features |= FIRST_PERSON;
+        } else if (component.isSecondPerson()) {
+            features |= SECOND_PERSON;
+        } else {
+            features |= THIRD_PERSON;
+        }
+
+        if (component.hasFirstPersonPossessive()) {
+            features |= FIRST_PERSON_POSSESSIVE;
+        } else if (component.hasSecondPersonPossessive()) {
+            features |= SECOND_PERSON_POSSESSIVE;
+        } else if (component.hasThirdPersonPossessive()) {
+            features |= THIRD_PERSON_POSSESSIVE;
+        }
+
+        if (component.isPronoun()) {
+            features |= PRONOUN;
+        } else if (component.isProperNoun()) {
+            features |= PROPER_NOUN;
+        } else if (component.isNoun()) {
+            features |= NOUN;
+        } else if (component.isVerb()) {
+            features |= VERB;
+        } else if (component.isAdjective()) {
+            features |= ADJECTIVE;
+        } else if (component.isAdverb()) {
+            features |= ADVERB;
+        }
+
+        return features;
+    }
+}
@@ -0,0 +1,139 @@
+package statements.core;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative ints to counts using open addressing, i.e. without boxing the keys or counts.
+ * Used for counting word ids, see Vocabulary.
+ */
+public class IntCountMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    public IntCountMap() {
+        this(4);
+    }
+
+    public IntCountMap(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Add to the count of a key.
+     *
+     * @param key a non-negative key
+     * @param count the count to add
+     * @return the new count of the key
+     */
+    public int add(int key, int count) {
+        if (key < 0) throw new IllegalArgumentException("only non-negative keys can be added: " + key);
+        if ((size + 1) * 2 > keys.length) resize();
+
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return counts[i] += count;
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        counts[i] = count;
+        size++;
+        return count;
+    }
+
+    /**
+     * Add one to the count of a key.
+     *
+     * @param key a non-negative key
+     * @return the new count of the key
+     */
+    public int increment(int key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Add the counts of another map to this map.
+     *
+     * @param other the other map
+     */
+    public void addAll(IntCountMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) add(other.keys[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * The count of a key.
+     *
+     * @param key the key
+     * @return count, or 0 if the key isn't in the map
+     */
+    public int get(int key) {
+        if (key < 0) return 0;
+
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return counts[i];
+            i = (i + 1) & mask;
+        }
+
+        return 0;
+    }
+
+    public boolean contains(int key) {
+        return get(key) != 0;
+    }
+
+    /**
+     * The keys of the map, in no particular order.
+     *
+     * @return keys
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int j = 0;
+
+        for (int key : keys) {
+            if (key != EMPTY) result[j++] = key;
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) add(oldKeys[i], oldCounts[i]);
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,92 @@
+package statements.core;
+
+import java.util.Arrays;
+
+/**
+ * A set of non-negative ints using open addressing, i.e. without boxing the values.
+ * Used for sets of word ids, see Vocabulary.
+ */
+public class IntHashSet {
+    private static final int EMPTY = -1;
+
+    private int[] slots;
+    private int size;
+
+    public IntHashSet() {
+        this(8);
+    }
+
+    public IntHashSet(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Add a value to the set.
+     *
+     * @param value a non-negative value
+     * @return true if the value wasn't already in the set
+     */
+    public boolean add(int value) {
+        if (value < 0) throw new IllegalArgumentException("only non-negative values can be added: " + value);
+        if ((size + 1) * 2 > slots.length) resize();
+
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) return false;
+            i = (i + 1) & mask;
+        }
+
+        slots[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Whether the set contains a value.
+     *
+     * @param value the value
+     * @return true if contained
+     */
+    public boolean contains(int value) {
+        if (value < 0) return false;
+
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+
+        while (slots[i] != EMPTY) {
+            if (slots[i] == value) return true;
+            i = (i + 1) & mask;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void resize() {
+        int[] oldSlots = slots;
+        slots = new int[oldSlots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+
+        for (int value : oldSlots) {
+            if (value != EMPTY) add(value);
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -17,4 +17,9 @@ public class Labels {
     public static final String DIRECT_OBJECT = "DirectObject";  // statements that act as subjects
     public static final String QUESTION = "Question";
     public static final String CITATION = "Citation";
+
+    // sentence labels
+    // used to explain why statements were not extracted from a sentence
+    public static final String TOO_MANY_TOKENS = "TooManyTokens";
+    public static final String TIMED_OUT = "TimedOut";
 }
@@ -0,0 +1,64 @@
+package statements.core;
+
+import edu.stanford.nlp.ling.IndexedWord;
+
+import java.util.Set;
+
+/**
+ * The words of a set sorted by their index in the sentence, along with the strings joined from them.
+ * Both are built the first time they are needed, rather than every time a component or statement is joined.
+ *
+ * The sets of a component are still modified while it is being constructed (and by its finder),
+ * so the sorted words are rebuilt whenever the size of the underlying set has changed.
+ */
+class OrderedWords {
+    private final Set<IndexedWord> words;
+    private IndexedWord[] sortedWords;
+    private int size = -1;
+
+    // the joined strings for every combination of useLemma and useLowerCase
+    private final String[] strings = new String[4];
+
+    OrderedWords(Set<IndexedWord> words) {
+        this.words = words;
+    }
+
+    /**
+     * The words sorted by index.
+     *
+     * @return sorted words
+     */
+    IndexedWord[] get() {
+        if (sortedWords == null || size != words.size()) {
+            sortedWords = StatementUtils.sort(words);
+            size = sortedWords.length;
+            for (int i = 0; i < strings.length; i++) strings[i] = null;
+        }
+
+        return sortedWords;
+    }
+
+    /**
+     * The words joined together, see StatementUtils.join(...).
+     *
+     * @param useLemma join the lemmas rather than the words
+     * @param useLowerCase join the words in lowercase
+     * @return the string representing the words
+     */
+    String join(boolean useLemma, boolean useLowerCase) {
+        IndexedWord[] sortedWords = get();
+        int i = (useLemma? 2 : 0) + (useLowerCase? 1 : 0);
+        String string = strings[i];
+
+        if (string == null) {
+            string = StatementUtils.join(sortedWords, useLemma, useLowerCase);
+            strings[i] = string;
+        }
+
+        return string;
+    }
+
+    String join() {
+        return join(false, false);
+    }
+}
@@ -27,6 +27,10 @@ public class Statement implements StatementComponent {
     private CoreMap origin;
     private Set<String> labels = new HashSet<>();
 
+    // the components can't change after construction, so the ordered words and sentence are only made once
+    private IndexedWord[] orderedWords;
+    private String sentence;
+
     @Override
     public boolean equals(Object object) {
         if (object instanceof Statement) {
@@ -322,7 +326,18 @@ public class Statement implements StatementComponent {
      * @return sentence
      */
     public String getSentence() {
-        return StatementUtils.join(getWords());
+        if (sentence == null) sentence = StatementUtils.join(getOrderedWords(), false, false);
+        return sentence;
+    }
+
+    /**
+     * Every word of the statement sorted by index.
+     *
+     * @return sorted words
+     */
+    public IndexedWord[] getOrderedWords() {
+        if (orderedWords == null) orderedWords = StatementUtils.sort(getWords());
+        return orderedWords;
     }
 
     /**
@@ -7,18 +7,64 @@ import edu.stanford.nlp.trees.TypedDependency;
 import edu.stanford.nlp.util.CoreMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import statements.annotations.SkippedReasonAnnotation;
+import statements.annotations.StatementsAnnotation;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * Finds Statements in sentences.
  */
 public class StatementFinder {
     private static final Logger logger = LoggerFactory.getLogger(StatementFinder.class);
-    private static SubjectFinder subjectFinder = new SubjectFinder();
-    private static VerbFinder verbFinder = new VerbFinder();
-    private static DirectObjectFinder directObjectFinder = new DirectObjectFinder();
-    private static IndirectObjectFinder indirectObjectFinder = new IndirectObjectFinder();
+
+    // the finders keep state while finding components, so each thread needs its own set of finders
+    private static ThreadLocal<SubjectFinder> subjectFinder = ThreadLocal.withInitial(SubjectFinder::new);
+    private static ThreadLocal<VerbFinder> verbFinder = ThreadLocal.withInitial(VerbFinder::new);
+    private static ThreadLocal<DirectObjectFinder> directObjectFinder = ThreadLocal.withInitial(DirectObjectFinder::new);
+    private static ThreadLocal<IndirectObjectFinder> indirectObjectFinder = ThreadLocal.withInitial(IndirectObjectFinder::new);
+
+    // the deadline (in nanoseconds) for the sentence currently being processed by this thread, if any
+    private static ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    // sentences skipped for exceeding their budget
+    private static final AtomicLong tooManyTokensCount = new AtomicLong();
+    private static final AtomicLong timedOutCount = new AtomicLong();
+
+    /**
+     * Find statements in a stream of sentences, e.g. sentences read by the CoNLLUReader.
+     * The sentences are processed in parallel and annotated with their statements,
+     * similar to how the StatementAnnotator annotates the sentences of the CoreNLP pipeline.
+     *
+     * Note: the sentences are processed lazily as the returned stream is consumed.
+     * Use forEachOrdered to consume the sentences in their original order.
+     *
+     * @param sentences the sentences to look in
+     * @return the annotated sentences
+     */
+    public static Stream<CoreMap> findAll(Stream<CoreMap> sentences) {
+        return sentences.parallel().map(sentence -> {
+            Set<Statement> statements = find(sentence);
+            if (statements != null && statements.size() > 0) sentence.set(StatementsAnnotation.class, statements);
+            return sentence;
+        });
+    }
+
+    /**
+     * Find statements in a stream of sentences and count them, see findAll.
+     *
+     * @param sentences the sentences to look in
+     * @return the total number of statements found
+     */
+    public static long countAll(Stream<CoreMap> sentences) {
+        return findAll(sentences).mapToLong(sentence -> {
+            Set<Statement> statements = sentence.get(StatementsAnnotation.class);
+            return statements != null? statements.size() : 0;
+        }).sum();
+    }
 
     /**
      * Find statements in a sentence.
@@ -27,16 +73,99 @@ public class StatementFinder {
      * @return statements
      */
     public static Set<Statement> find(CoreMap sentence) {
+        return find(sentence, 0, 0);
+    }
+
+    /**
+     * Find statements in a sentence within a budget.
+     * Some sentences (e.g. tables or long run-on sentences) can take a very long time to process,
+     * so sentences exceeding the budget are skipped and annotated with the reason.
+     * The time budget is checked cooperatively in the costly steps, so it may be exceeded slightly.
+     *
+     * @param sentence the sentence to look in
+     * @param maxTokens the maximum amount of words in the dependency graph (0 = no limit)
+     * @param maxMillis the maximum time in milliseconds to spend on the sentence (0 = no limit)
+     * @return statements (empty if the sentence was skipped)
+     */
+    public static Set<Statement> find(CoreMap sentence, int maxTokens, long maxMillis) {
         SemanticGraph graph = sentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class);
+
+        if (maxTokens > 0 && graph.size() > maxTokens) {
+            logger.warn("skipping sentence with " + graph.size() + " tokens: " + sentence);
+            sentence.set(SkippedReasonAnnotation.class, Labels.TOO_MANY_TOKENS);
+            tooManyTokensCount.incrementAndGet();
+            return new HashSet<>();
+        }
+
+        if (maxMillis > 0) deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis));
+
+        try {
+            return findStatements(sentence, graph);
+        } catch (BudgetExceededException e) {
+            logger.warn("skipping sentence after " + maxMillis + " ms: " + sentence);
+            sentence.set(SkippedReasonAnnotation.class, Labels.TIMED_OUT);
+            timedOutCount.incrementAndGet();
+            return new HashSet<>();
+        } finally {
+            deadline.remove();
+        }
+    }
+
+    /**
+     * The total number of sentences skipped for containing too many tokens.
+     *
+     * @return skipped sentences
+     */
+    public static long getTooManyTokensCount() {
+        return tooManyTokensCount.get();
+    }
+
+    /**
+     * The total number of sentences skipped for taking too long to process.
+     *
+     * @return skipped sentences
+     */
+    public static long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+
+    /**
+     * Stops the processing of the current sentence if its deadline has passed.
+     * Called regularly in the steps of the finding process that may take a long time.
+     */
+    private static void checkBudget() {
+        Long sentenceDeadline = deadline.get();
+        if (sentenceDeadline != null && System.nanoTime() > sentenceDeadline) throw new BudgetExceededException();
+    }
+
+    /**
+     * Thrown when the processing of a sentence exceeds its time budget.
+     */
+    private static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException() {
+            super(null, null, false, false);  // no need for a stack trace
+        }
+    }
+
+    /**
+     * Find statements in the dependency graph of a sentence.
+     *
+     * @param sentence the sentence to look in
+     * @param graph the dependency graph of the sentence
+     * @return statements
+     */
+    private static Set<Statement> findStatements(CoreMap sentence, SemanticGraph graph) {
         logger.info("finding statements based on dependencies: " + graph.typedDependencies());
         graph.prettyPrint();  // TODO: remove when done debugging
 
         // components are found independently through their own finder classes
         Set<AbstractComponent> components = new HashSet<>();
-        components.addAll(subjectFinder.find(graph));
-        components.addAll(verbFinder.find(graph));
-        components.addAll(directObjectFinder.find(graph));
-        components.addAll(indirectObjectFinder.find(graph));
+        components.addAll(subjectFinder.get().find(graph));
+        components.addAll(verbFinder.get().find(graph));
+        components.addAll(directObjectFinder.get().find(graph));
+        components.addAll(indirectObjectFinder.get().find(graph));
 
         // components are not allowed to overlap
         // this is sometimes caused by errors in the dependency graph (or bugs in this algorithm)
@@ -104,6 +233,8 @@ public class StatementFinder {
         Set<AbstractComponent> reducedComponents = new HashSet<>(components);
 
         for (AbstractComponent component : components) {
+            checkBudget();
+
             for (AbstractComponent otherComponent : components) {
                 if (component != otherComponent && StatementUtils.intersects(component.getCompound(), otherComponent.getCompound())) {
                     if (component.contains(otherComponent)) {
@@ -282,6 +413,7 @@ public class StatementFinder {
             // with each level of recursion one component class is no longer needed
             // remaining duplicate classes will be handled further down the recursive stack
             for (Class componentClass : duplicateClasses) {
+                checkBudget();
                 remainingDuplicateClasses.remove(componentClass);
                 Set<StatementComponent> duplicateComponents = new HashSet<>();
                 Set<StatementComponent> components = statement.getComponents();
@@ -345,6 +477,8 @@ public class StatementFinder {
         }
 
         for (Statement statement : statements) {
+            checkBudget();
+
             // all connections to this component are contained in this set (including the component itself)
             Set<Statement> connections = new HashSet<>();
 
@@ -405,6 +539,8 @@ public class StatementFinder {
         Map<Set<StatementComponent>, Set<Statement>> overlapMapping = new HashMap<>();
 
         for (Statement statement : statements) {
+            checkBudget();
+
             for (Statement otherStatement : statements) {
                 if (statement != otherStatement) {
                     Set<StatementComponent> overlap = statement.getOverlap(otherStatement);
@@ -446,6 +582,7 @@ public class StatementFinder {
         logger.info("between statements: " + overlappingStatements);
 
         for (Statement overlappingStatement : overlappingStatements) {
+            checkBudget();
             Set<Statement> combination = new HashSet<>();
             combination.add(overlappingStatement);
 
@@ -491,6 +628,7 @@ public class StatementFinder {
      * @return
      */
     private static Set<Statement> resolveOverlap(Set<Statement> statements) {
+        checkBudget();
         Map<Set<StatementComponent>, Set<Statement>> overlapMapping = getOverlaps(statements);
 
         if (!overlapMapping.isEmpty()) {
@@ -521,6 +659,8 @@ public class StatementFinder {
         // discover links between unconnected statements and embed nested statements
         Map<Statement, Statement> embeddingMap = new HashMap<>();
         for (Statement statement : statements) {
+            checkBudget();
+
             for (Statement otherStatement : statements) {
                 if (statement.embeddingParentOf(otherStatement)) {
                     logger.info(statement + " embeds " + otherStatement);
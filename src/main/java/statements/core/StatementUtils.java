@@ -22,12 +22,19 @@ public class StatementUtils {
      * @return the string representing the words
      */
     public static String join(Set<IndexedWord> words, boolean useLemma, boolean useLowerCase) {
-        List<IndexedWord> wordsList = new ArrayList<>(words);
-        wordsList.sort(new IndexComparator());
+        return join(sort(words), useLemma, useLowerCase);
+    }
 
-        StringBuffer buffer = new StringBuffer();
-        for (int i = 0; i < wordsList.size(); i++) {
-            IndexedWord indexedWord = wordsList.get(i);
+    /**
+     * Joins words that are already sorted by index without putting spaces before commas.
+     *
+     * @param words the words to be joined, sorted by index
+     * @return the string representing the words
+     */
+    public static String join(IndexedWord[] words, boolean useLemma, boolean useLowerCase) {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            IndexedWord indexedWord = words[i];
             String tag = indexedWord.tag();
             String word = indexedWord.word();
             String lemma = indexedWord.lemma();
@@ -52,6 +59,18 @@ public class StatementUtils {
         return buffer.toString();
     }
 
+    /**
+     * The words of a set sorted by their index in the sentence.
+     *
+     * @param words the words to sort
+     * @return sorted words
+     */
+    public static IndexedWord[] sort(Set<IndexedWord> words) {
+        IndexedWord[] sortedWords = words.toArray(new IndexedWord[words.size()]);
+        Arrays.sort(sortedWords, new IndexComparator());
+        return sortedWords;
+    }
+
     public static String join(Set<IndexedWord> words) {
         return join(words, false, false);
     }
@@ -0,0 +1,96 @@
+package statements.core;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+
+/**
+ * Lexical features of the tokens in a sentence, stored as bit flags in an array indexed by token index.
+ * The flags are computed once per sentence and shared by every component made from it,
+ * rather than looking up the lowercase word or tag of a token in a Lexicon or PartsOfSpeech set every time.
+ */
+public class TokenFlags {
+    // person
+    public static final int FIRST_PERSON = 1;
+    public static final int SECOND_PERSON = 1 << 1;
+    public static final int FIRST_PERSON_POSSESSIVE = 1 << 2;
+    public static final int SECOND_PERSON_POSSESSIVE = 1 << 3;
+
+    // determiners
+    public static final int SPECIFIC_DETERMINER = 1 << 4;
+    public static final int LOCAL_DETERMINER = 1 << 5;
+
+    // form
+    public static final int PLURAL = 1 << 6;
+    public static final int CAPITALISED = 1 << 7;
+
+    // part-of-speech
+    public static final int PRONOUN = 1 << 8;  // only PRP, see AbstractComponent.isPronoun()
+    public static final int PROPER_NOUN = 1 << 9;
+    public static final int NOUN = 1 << 10;
+    public static final int VERB = 1 << 11;
+    public static final int ADJECTIVE = 1 << 12;
+    public static final int ADVERB = 1 << 13;
+
+    /**
+     * The flags of a sentence, shared by all of its tokens.
+     */
+    public static class TokenFlagsAnnotation implements CoreAnnotation<int[]> {
+        public Class<int[]> getType() {
+            return int[].class;
+        }
+    }
+
+    /**
+     * The flags for the tokens of the sentence that a word belongs to.
+     * The flags are computed the first time they are requested for a sentence.
+     *
+     * @param word a word of the sentence
+     * @param graph the dependency graph of the sentence
+     * @return flags indexed by token index
+     */
+    public static int[] of(IndexedWord word, SemanticGraph graph) {
+        int[] flags = word.get(TokenFlagsAnnotation.class);
+
+        if (flags == null) {
+            int maxIndex = 0;
+            for (IndexedWord vertex : graph.vertexSet()) maxIndex = Math.max(maxIndex, vertex.index());
+
+            flags = new int[maxIndex + 1];
+            for (IndexedWord vertex : graph.vertexSet()) flags[vertex.index()] = compute(vertex);
+            for (IndexedWord vertex : graph.vertexSet()) vertex.set(TokenFlagsAnnotation.class, flags);
+        }
+
+        return flags;
+    }
+
+    /**
+     * Compute the flags of a single word.
+     *
+     * @param word the word
+     * @return flags
+     */
+    public static int compute(IndexedWord word) {
+        String tag = word.tag() != null? word.tag() : "";
+        String text = word.word() != null? word.word() : "";
+        String lowerCaseText = text.toLowerCase();
+        int flags = 0;
+
+        if (Lexicon.FIRST_PERSON.contains(lowerCaseText)) flags |= FIRST_PERSON;
+        if (Lexicon.SECOND_PERSON.contains(lowerCaseText)) flags |= SECOND_PERSON;
+        if (Lexicon.FIRST_PERSON_POSSESSIVES.contains(lowerCaseText)) flags |= FIRST_PERSON_POSSESSIVE;
+        if (Lexicon.SECOND_PERSON_POSSESSIVES.contains(lowerCaseText)) flags |= SECOND_PERSON_POSSESSIVE;
+        if (Lexicon.SPECIFIC_DETERMINERS.contains(lowerCaseText)) flags |= SPECIFIC_DETERMINER;
+        if (Lexicon.LOCAL_DETERMINERS.contains(lowerCaseText)) flags |= LOCAL_DETERMINER;
+        if (PartsOfSpeech.PLURAL.contains(tag) || Lexicon.PLURAL_NON_NOUNS.contains(lowerCaseText)) flags |= PLURAL;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) flags |= CAPITALISED;
+        if (tag.equals(PartsOfSpeech.PRP)) flags |= PRONOUN;
+        if (PartsOfSpeech.PROPER_NOUNS.contains(tag)) flags |= PROPER_NOUN;
+        if (PartsOfSpeech.NOUNS.contains(tag)) flags |= NOUN;
+        if (PartsOfSpeech.VERBS.contains(tag)) flags |= VERB;
+        if (PartsOfSpeech.ADJECTIVES.contains(tag)) flags |= ADJECTIVE;
+        if (PartsOfSpeech.ADVERBS.contains(tag)) flags |= ADVERB;
+
+        return flags;
+    }
+}
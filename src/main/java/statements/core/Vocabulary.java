@@ -0,0 +1,77 @@
+package statements.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary shared by all components that assigns an int id to every distinct word (or joined compound).
+ * Components intern their words once when they are created, so that patterns can match words by id
+ * rather than by building and comparing strings.
+ *
+ * Ids are assigned in the order the words are first seen and are never reused.
+ */
+public final class Vocabulary {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] words = new String[1024];
+    private static int size;
+
+    private Vocabulary() {
+    }
+
+    /**
+     * The id of a word, assigning a new id if the word hasn't been seen before.
+     *
+     * @param word the word
+     * @return id
+     */
+    public static int getId(String word) {
+        Integer id = ids.get(word);
+        if (id != null) return id;
+
+        synchronized (Vocabulary.class) {
+            id = ids.get(word);
+
+            if (id == null) {
+                String[] currentWords = words;
+                if (size == currentWords.length) currentWords = Arrays.copyOf(currentWords, size * 2);
+                currentWords[size] = word;
+                words = currentWords;  // publishes the word before its id
+                id = size++;
+                ids.put(word, id);
+            }
+
+            return id;
+        }
+    }
+
+    /**
+     * The id of a word without assigning a new one.
+     *
+     * @param word the word
+     * @return id, or -1 if the word hasn't been seen before
+     */
+    public static int findId(String word) {
+        Integer id = ids.get(word);
+        return id != null? id : -1;
+    }
+
+    /**
+     * The word represented by an id.
+     *
+     * @param id the id
+     * @return word
+     */
+    public static String getWord(int id) {
+        return words[id];
+    }
+
+    /**
+     * The number of words in the vocabulary.
+     *
+     * @return word count
+     */
+    public static int size() {
+        return ids.size();
+    }
+}
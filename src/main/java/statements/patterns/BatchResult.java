@@ -0,0 +1,77 @@
+package statements.patterns;
+
+import statements.core.StatementComponent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The result of matching a StatementPattern against every statement of a StatementBatch.
+ * The matches are stored as a bitmap over the rows of the batch, while the captures of all rows
+ * are stored in a single array with the captures of a row starting at its offset.
+ */
+public final class BatchResult {
+    private final BitSet matches;
+    private final int[] captureOffsets;
+    private final StatementComponent[] captures;
+
+    BatchResult(BitSet matches, int[] captureOffsets, StatementComponent[] captures) {
+        this.matches = matches;
+        this.captureOffsets = captureOffsets;
+        this.captures = captures;
+    }
+
+    /**
+     * Whether the pattern matched the statement of a row.
+     *
+     * @param row the row of the statement in the batch
+     * @return true if matched
+     */
+    public boolean matches(int row) {
+        return matches.get(row);
+    }
+
+    /**
+     * The rows of the statements that matched.
+     *
+     * @return match bitmap (a copy)
+     */
+    public BitSet getMatches() {
+        return (BitSet) matches.clone();
+    }
+
+    /**
+     * The number of statements that matched.
+     *
+     * @return match count
+     */
+    public int count() {
+        return matches.cardinality();
+    }
+
+    /**
+     * The number of statements in the batch.
+     *
+     * @return row count
+     */
+    public int size() {
+        return captureOffsets.length - 1;
+    }
+
+    /**
+     * The components captured by the contained patterns in a row.
+     *
+     * @param row the row of the statement in the batch
+     * @return captured components (empty for rows that didn't match)
+     */
+    public List<StatementComponent> getCaptures(int row) {
+        return new ArrayList<>(Arrays.asList(captures).subList(captureOffsets[row], captureOffsets[row + 1]));
+    }
+
+    @Override
+    public String toString() {
+        return "{matches: " + count() + "/" + size() + "}";
+    }
+}
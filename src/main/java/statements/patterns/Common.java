@@ -8,7 +8,7 @@ import java.io.IOException;
 public class Common {
     public static WordnetDictionary dictionary;
 
-    public static WordnetDictionary getDictionary() {
+    public static synchronized WordnetDictionary getDictionary() {
         if (dictionary == null) {
             try {
                 dictionary = new WordnetDictionary();
@@ -20,16 +20,37 @@ public class Common {
         return dictionary;
     }
 
-    public final static String[] OPINION_VERB = getDictionary().getSynonyms(POS.VERB, "think", "reckon", "believe", "know").stream().toArray(String[]::new);
-    public final static String[] LOCATION_VERB = getDictionary().getSynonyms(POS.VERB, "be", "come", "go", "live", "stay", "visit", "travel").stream().toArray(String[]::new);
-    public final static String[] POSSESS_VERB = getDictionary().getSynonyms(POS.VERB, "have", "own", "possess").stream().toArray(String[]::new);
-    public final static String[] LIKE_VERB = getDictionary().getSynonyms(POS.VERB, "like", "love", "prefer").stream().toArray(String[]::new);
-    public final static String[] DISLIKE_VERB = getDictionary().getSynonyms(POS.VERB, "dislike", "hate", "detest").stream().toArray(String[]::new);
-    public final static String[] WANT_VERB = getDictionary().getSynonyms(POS.VERB, "want", "would like", "desire").stream().toArray(String[]::new);
+    // the synonyms are loaded from the lexicon file and only expanded using Wordnet when missing
+    // (the file is never written here, see SynonymLexicon.main)
+    private static final SynonymLexicon lexicon = SynonymLexicon.load();
 
-    public final static String[] OPINION_NOUN = getDictionary().getSynonyms(POS.NOUN, "opinion", "thought", "mind").stream().toArray(String[]::new);
-    public final static String[] POSITIVE_ADJECTIVE = getDictionary().getSynonyms(POS.ADJECTIVE, "good", "nice", "great", "fantastic", "awesome", "perfect", "fun").stream().toArray(String[]::new);
-    public final static String[] NEGATIVE_ADJECTIVE = getDictionary().getSynonyms(POS.ADJECTIVE, "bad", "horrible", "terrible", "scary").stream().toArray(String[]::new);
+    public static SynonymLexicon getLexicon() {
+        return lexicon;
+    }
+
+    // every set is defined before any synonyms are needed, so that the missing sets are expanded together
+    static {
+        lexicon.define("OPINION_VERB", POS.VERB, "think", "reckon", "believe", "know");
+        lexicon.define("LOCATION_VERB", POS.VERB, "be", "come", "go", "live", "stay", "visit", "travel");
+        lexicon.define("POSSESS_VERB", POS.VERB, "have", "own", "possess");
+        lexicon.define("LIKE_VERB", POS.VERB, "like", "love", "prefer");
+        lexicon.define("DISLIKE_VERB", POS.VERB, "dislike", "hate", "detest");
+        lexicon.define("WANT_VERB", POS.VERB, "want", "would like", "desire");
+        lexicon.define("OPINION_NOUN", POS.NOUN, "opinion", "thought", "mind");
+        lexicon.define("POSITIVE_ADJECTIVE", POS.ADJECTIVE, "good", "nice", "great", "fantastic", "awesome", "perfect", "fun");
+        lexicon.define("NEGATIVE_ADJECTIVE", POS.ADJECTIVE, "bad", "horrible", "terrible", "scary");
+    }
+
+    public final static String[] OPINION_VERB = lexicon.get("OPINION_VERB");
+    public final static String[] LOCATION_VERB = lexicon.get("LOCATION_VERB");
+    public final static String[] POSSESS_VERB = lexicon.get("POSSESS_VERB");
+    public final static String[] LIKE_VERB = lexicon.get("LIKE_VERB");
+    public final static String[] DISLIKE_VERB = lexicon.get("DISLIKE_VERB");
+    public final static String[] WANT_VERB = lexicon.get("WANT_VERB");
+
+    public final static String[] OPINION_NOUN = lexicon.get("OPINION_NOUN");
+    public final static String[] POSITIVE_ADJECTIVE = lexicon.get("POSITIVE_ADJECTIVE");
+    public final static String[] NEGATIVE_ADJECTIVE = lexicon.get("NEGATIVE_ADJECTIVE");
 
     public final static String[] LOCATION_PREPOSITION = new String[] { "in", "from", "to", "by", "at", "around", "on" };
 }
@@ -1,14 +1,19 @@
 package statements.patterns;
 
 import edu.stanford.nlp.ling.IndexedWord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import statements.core.AbstractComponent;
+import statements.core.Features;
+import statements.core.IntHashSet;
+import statements.core.Lexicon;
 import statements.core.PartsOfSpeech;
 import statements.core.StatementComponent;
-import statements.core.Verb;
+import statements.core.Vocabulary;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 
 
 /**
@@ -18,6 +23,8 @@ import java.util.Set;
  * This is necessary to be able to have unknown/null states.
  */
 public class ComponentPattern implements Pattern {
+    private static final Logger logger = LoggerFactory.getLogger(ComponentPattern.class);
+
     private Class[] types;
     private Set<String> words;
     private Set<String> notWords;
@@ -39,7 +46,6 @@ public class ComponentPattern implements Pattern {
      * Used to capture certain components (similar to how it works in regex).
      */
     private boolean capture;
-    private AbstractComponent captured;
     private boolean optional;
 
     /**
@@ -47,6 +53,21 @@ public class ComponentPattern implements Pattern {
      */
     private boolean mustMatchAll;
 
+    /**
+     * The checks of this pattern compiled into a plan, cheapest checks first.
+     * Compiled the first time the pattern is matched and reset whenever the pattern is changed.
+     */
+    private volatile List<Step> plan;
+
+    // the ids of the words and notWords, compiled along with the plan
+    private IntHashSet wordIds;
+    private IntHashSet notWordIds;
+
+    // the relative cost of the different kinds of checks
+    private static final int FLAG_COST = 1;  // precomputed feature bits
+    private static final int SET_COST = 2;  // building, iterating or probing sets of words
+    private static final int STRING_COST = 3;  // comparing (joined) strings
+
     public ComponentPattern(Class... types) {
         this.types = types;
     }
@@ -58,6 +79,7 @@ public class ComponentPattern implements Pattern {
     public ComponentPattern words(Set<String> words) {
         if (this.words == null) this.words = new HashSet<>();
         this.words = words;
+        plan = null;
         return this;
     }
 
@@ -65,6 +87,7 @@ public class ComponentPattern implements Pattern {
         if (this.words == null) this.words = new HashSet<>();
         for (int i = 0; i < words.length; i++) words[i] = words[i].toLowerCase();
         Collections.addAll(this.words, words);
+        plan = null;
         return this;
     }
 
@@ -72,17 +95,20 @@ public class ComponentPattern implements Pattern {
         if (this.notWords == null) this.notWords = new HashSet<>();
         for (int i = 0; i < words.length; i++) words[i] = words[i].toLowerCase();
         Collections.addAll(this.notWords, words);
+        plan = null;
         return this;
     }
 
     public ComponentPattern notWords(Set<String> words) {
         if (this.notWords == null) this.notWords = new HashSet<>();
         this.notWords = words;
+        plan = null;
         return this;
     }
 
     public ComponentPattern negated(Boolean state) {
         this.negated = state;
+        plan = null;
         return this;
     }
 
@@ -92,6 +118,7 @@ public class ComponentPattern implements Pattern {
 
     public ComponentPattern plural(Boolean state) {
         this.plural = state;
+        plan = null;
         return this;
     }
 
@@ -105,6 +132,7 @@ public class ComponentPattern implements Pattern {
 
     public ComponentPattern specific(Boolean state) {
         this.specific = state;
+        plan = null;
         return this;
     }
 
@@ -118,6 +146,7 @@ public class ComponentPattern implements Pattern {
 
     public ComponentPattern local(Boolean state) {
         this.local = state;
+        plan = null;
         return this;
     }
 
@@ -127,11 +156,13 @@ public class ComponentPattern implements Pattern {
 
     public ComponentPattern copula(Boolean state) {
         this.copula = state;
+        plan = null;
         return this;
     }
 
     public ComponentPattern capitalised(Boolean state) {
         this.capitalised = state;
+        plan = null;
         return this;
     }
 
@@ -146,16 +177,19 @@ public class ComponentPattern implements Pattern {
     public ComponentPattern preposition(String... prepositions) {
         for (int i = 0; i < prepositions.length; i++) prepositions[i] = prepositions[i].toLowerCase();
         this.prepositions = prepositions;
+        plan = null;
         return this;
     }
 
     public ComponentPattern preposition() {
         preposition(new String[0]);  // empty array will match any preposition
+        plan = null;
         return this;
     }
 
     public ComponentPattern description(Boolean state) {
         this.description = state;
+        plan = null;
         return this;
     }
 
@@ -168,6 +202,7 @@ public class ComponentPattern implements Pattern {
      */
     public ComponentPattern person(Person... states) {
         this.pointsOfView = states;
+        plan = null;
         return this;
     }
 
@@ -185,6 +220,7 @@ public class ComponentPattern implements Pattern {
 
     public ComponentPattern possessive(Person... states) {
         this.possessivePointsOfView = states;
+        plan = null;
         return this;
     }
 
@@ -205,6 +241,7 @@ public class ComponentPattern implements Pattern {
      */
     public ComponentPattern partsOfSpeech(Tag... state) {
         this.partsOfSpeech = state;
+        plan = null;
         return this;
     }
 
@@ -238,24 +275,38 @@ public class ComponentPattern implements Pattern {
         this.tagGroups = new HashSet<>();
 
         for (Tag tag : tags) {
-            if (tag.equals(Tag.adjective)) {
-                this.tagGroups.add(PartsOfSpeech.ADJECTIVES);
-            } else if (tag.equals(Tag.adverb)) {
-                this.tagGroups.add(PartsOfSpeech.ADVERBS);
-            } else if (tag.equals(Tag.noun)) {
-                this.tagGroups.add(PartsOfSpeech.NOUNS);
-            } else if (tag.equals(Tag.pronoun)) {
-                this.tagGroups.add(PartsOfSpeech.PRONOUNS);
-            } else if (tag.equals(Tag.properNoun)) {
-                this.tagGroups.add(PartsOfSpeech.PROPER_NOUNS);
-            } else if (tag.equals(Tag.verb)) {
-                this.tagGroups.add(PartsOfSpeech.VERBS);
-            }
+            Set<String> tagGroup = getTagGroup(tag);
+            if (tagGroup != null) this.tagGroups.add(tagGroup);
         }
 
+        plan = null;
         return this;
     }
 
+    /**
+     * The part-of-speech tags represented by a Tag.
+     *
+     * @param tag the tag
+     * @return part-of-speech tags
+     */
+    private static Set<String> getTagGroup(Tag tag) {
+        if (tag.equals(Tag.adjective)) {
+            return PartsOfSpeech.ADJECTIVES;
+        } else if (tag.equals(Tag.adverb)) {
+            return PartsOfSpeech.ADVERBS;
+        } else if (tag.equals(Tag.noun)) {
+            return PartsOfSpeech.NOUNS;
+        } else if (tag.equals(Tag.pronoun)) {
+            return PartsOfSpeech.PRONOUNS;
+        } else if (tag.equals(Tag.properNoun)) {
+            return PartsOfSpeech.PROPER_NOUNS;
+        } else if (tag.equals(Tag.verb)) {
+            return PartsOfSpeech.VERBS;
+        }
+
+        return null;
+    }
+
     /*
         Meta section.
      */
@@ -277,6 +328,98 @@ public class ComponentPattern implements Pattern {
         return this;
     }
 
+    /**
+     * The words that the normal compound or head lemma must match (null if any word matches).
+     * Used by the PatternSet to index patterns.
+     *
+     * @return words
+     */
+    Set<String> getWords() {
+        return words;
+    }
+
+    boolean isCapture() {
+        return capture;
+    }
+
+    /**
+     * Whether some checks of this pattern depend on more than the feature word and the words of a component.
+     * Used by the StatementBatch to find out which patterns can be evaluated using its columns alone.
+     *
+     * @return true if the pattern has other checks
+     */
+    boolean hasResidualChecks() {
+        return compoundTags != null || (prepositions != null && prepositions.length > 0);
+    }
+
+    /**
+     * The feature bits that a matching component must have.
+     * Used by the StatementIndex to look up candidates.
+     *
+     * @return feature bits, see Features
+     */
+    long getRequiredFeatures() {
+        long required = 0;
+
+        if (negated != null && negated) required |= Features.NEGATED;
+        if (plural != null && plural) required |= Features.PLURAL;
+        if (specific != null && specific) required |= Features.SPECIFIC;
+        if (local != null && local) required |= Features.LOCAL;
+        if (capitalised != null && capitalised) required |= Features.CAPITALISED;
+        if (description != null && description) required |= Features.DESCRIPTION;
+        if (prepositions != null) required |= Features.PREPOSITION;
+
+        return required;
+    }
+
+    /**
+     * The groups of exclusive feature bits of which a matching component must have one.
+     * Used by the StatementIndex to look up candidates.
+     *
+     * @return feature masks, see Features
+     */
+    List<Long> getRequiredFeatureGroups() {
+        List<Long> groups = new ArrayList<>();
+
+        if (partsOfSpeech != null) groups.add(getFeatureMask(partsOfSpeech));
+        if (pointsOfView != null) groups.add(getFeatureMask(pointsOfView, Features.FIRST_PERSON, Features.SECOND_PERSON, Features.THIRD_PERSON));
+        if (possessivePointsOfView != null) groups.add(getFeatureMask(possessivePointsOfView, Features.FIRST_PERSON_POSSESSIVE, Features.SECOND_PERSON_POSSESSIVE, Features.THIRD_PERSON_POSSESSIVE));
+
+        return groups;
+    }
+
+    /**
+     * Whether the word ids of a component pass the words and notWords checks of this pattern.
+     *
+     * @param normalCompoundId the id of the normal compound of the component
+     * @param headLemmaId the id of the head lemma of the component
+     * @return true if both checks pass
+     */
+    boolean matchesWordIds(int normalCompoundId, int headLemmaId) {
+        getPlan();
+        IntHashSet idsToMatch = wordIds;
+        IntHashSet idsToAvoid = notWordIds;
+
+        if (idsToMatch != null && !matchesWords(normalCompoundId, headLemmaId, idsToMatch)) return false;
+        if (idsToAvoid != null && matchesWords(normalCompoundId, headLemmaId, idsToAvoid)) return false;
+
+        return true;
+    }
+
+    /**
+     * Whether the feature word of a component passes the checks of this pattern that only depend on features.
+     *
+     * @param features the feature word of a component, see Features
+     * @return true if all feature checks pass
+     */
+    boolean matchesFeatures(long features) {
+        for (Step step : getPlan()) {
+            if (step.featureCheck != null && !step.featureCheck.test(features)) return false;
+        }
+
+        return true;
+    }
+
     @Override
     public boolean mustMatchAll() {
         return mustMatchAll;
@@ -288,19 +431,22 @@ public class ComponentPattern implements Pattern {
     }
 
     /**
-     * Get the component captured during the latest match.
-     * @return captured component
+     * Match this ComponentPattern against a component.
+     *
+     * @param statementComponent the component to test
+     * @return the result of the match, containing the component if it was captured
      */
-    public AbstractComponent getCaptured() {
-        return captured;
+    public MatchResult match(StatementComponent statementComponent) {
+        return matches(statementComponent)? capture? new MatchResult(true, statementComponent, null) : MatchResult.MATCH : MatchResult.NO_MATCH;
     }
 
     /**
-     * Match this ComponentPattern against a component.
+     * Whether this ComponentPattern matches a component.
      *
      * @param statementComponent the component to test
      * @return true if the pattern matches the component
      */
+    @Override
     public boolean matches(StatementComponent statementComponent) {
         if (statementComponent == null) return false;
 
@@ -311,45 +457,267 @@ public class ComponentPattern implements Pattern {
             // must ALWAYS match component type
             if (!matchesTypes(abstractComponent)) return false;
 
-            // can be ignored if specified, otherwise defaults to matching non-negated
-            if (negated != null && abstractComponent.isNegated() != negated) return false;
+            for (Step step : getPlan()) {
+                if (!step.check.test(abstractComponent)) return false;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The compiled plan of this pattern.
+     *
+     * @return checks in order of execution
+     */
+    private List<Step> getPlan() {
+        List<Step> currentPlan = plan;
 
-            if (plural != null && abstractComponent.isPlural() != plural) return false;
+        if (currentPlan == null) {
+            currentPlan = compile();
+            plan = currentPlan;
+        }
 
-            if (specific != null && abstractComponent.isSpecific() != specific) return false;
+        return currentPlan;
+    }
 
-            if (local != null && abstractComponent.isLocal() != local) return false;
+    /**
+     * Compile the checks of this pattern into a plan.
+     * The checks are ordered by cost so that most components are rejected by the cheap checks.
+     *
+     * @return checks in order of execution
+     */
+    private List<Step> compile() {
+        List<Step> steps = new ArrayList<>();
 
-            if (capitalised != null && abstractComponent.isCapitalised() != capitalised) return false;
+        // the boolean checks are compiled into a single mask and the values expected for the masked bits
+        long mask = 0;
+        long expected = 0;
 
-            if (description != null && abstractComponent.hasDescription() != description) return false;
+        // can be ignored if specified, otherwise defaults to matching non-negated
+        if (negated != null) {
+            mask |= Features.NEGATED;
+            if (negated) expected |= Features.NEGATED;
+        }
 
-            if (partsOfSpeech != null && !matchesPartOfSpeech(abstractComponent)) return false;
+        if (plural != null) {
+            mask |= Features.PLURAL;
+            if (plural) expected |= Features.PLURAL;
+        }
 
-            if (compoundTags != null && !matchesCompoundTags(abstractComponent)) return false;
+        if (specific != null) {
+            mask |= Features.SPECIFIC;
+            if (specific) expected |= Features.SPECIFIC;
+        }
 
-            // 1st, 2nd, and/or 3rd person
-            if (pointsOfView != null && !matchesPointOfView(abstractComponent)) return false;
+        if (local != null) {
+            mask |= Features.LOCAL;
+            if (local) expected |= Features.LOCAL;
+        }
 
-            // 1st, 2nd, and/or 3rd person
-            if (possessivePointsOfView != null && !matchesPossessivePointOfView(abstractComponent)) return false;
+        if (capitalised != null) {
+            mask |= Features.CAPITALISED;
+            if (capitalised) expected |= Features.CAPITALISED;
+        }
 
-            // = "to be" verb
-            if (copula != null && abstractComponent instanceof Verb && !(((Verb) abstractComponent).isCopula() == copula)) return false;
+        if (description != null) {
+            mask |= Features.DESCRIPTION;
+            if (description) expected |= Features.DESCRIPTION;
+        }
 
-            // such as "to", "from", "by", ...
-            if (prepositions != null && !matchesPrepositions(abstractComponent)) return false;
+        // an empty array matches any preposition
+        if (prepositions != null && prepositions.length == 0) {
+            mask |= Features.PREPOSITION;
+            expected |= Features.PREPOSITION;
+        }
 
-            // matches words to compound
-            if (words != null && !matchesWords(abstractComponent, words)) return false;
-            if (notWords != null && matchesWords(abstractComponent, notWords)) return false;
+        if (mask != 0) {
+            long featureMask = mask;
+            long expectedFeatures = expected;
+            steps.add(Step.ofFeatures("features", FLAG_COST, features -> (features & featureMask) == expectedFeatures));
+        }
 
-            if (capture) captured = abstractComponent;
+        // the exclusive states only need one of their bits to be set
+        if (partsOfSpeech != null) {
+            long partOfSpeechMask = getFeatureMask(partsOfSpeech);
+            steps.add(Step.ofFeatures("partsOfSpeech", FLAG_COST, features -> (features & partOfSpeechMask) != 0));
+        }
 
-            return true;
+        // 1st, 2nd, and/or 3rd person
+        if (pointsOfView != null) {
+            long personMask = getFeatureMask(pointsOfView, Features.FIRST_PERSON, Features.SECOND_PERSON, Features.THIRD_PERSON);
+            steps.add(Step.ofFeatures("person", FLAG_COST, features -> (features & personMask) != 0));
         }
 
-        return false;
+        // 1st, 2nd, and/or 3rd person
+        if (possessivePointsOfView != null) {
+            long possessiveMask = getFeatureMask(possessivePointsOfView, Features.FIRST_PERSON_POSSESSIVE, Features.SECOND_PERSON_POSSESSIVE, Features.THIRD_PERSON_POSSESSIVE);
+            steps.add(Step.ofFeatures("possessive", FLAG_COST, features -> (features & possessiveMask) != 0));
+        }
+
+        // = "to be" verb (other components always match)
+        if (copula != null) {
+            boolean state = copula;
+            steps.add(Step.ofFeatures("copula", FLAG_COST, features -> (features & Features.VERB_COMPONENT) == 0 || ((features & Features.COPULA) != 0) == state));
+        }
+
+        if (compoundTags != null) steps.add(new Step("compoundTags", SET_COST, this::matchesCompoundTags));
+
+        // such as "to", "from", "by", ...
+        if (prepositions != null && prepositions.length > 0) steps.add(new Step("preposition", STRING_COST, this::matchesPrepositions));
+
+        // matches words to compound (by their ids in the Vocabulary)
+        wordIds = words != null? getIds(words) : null;
+        if (wordIds != null) {
+            IntHashSet idsToMatch = wordIds;
+            steps.add(new Step("words", SET_COST, c -> matchesWords(c.getNormalCompoundId(), c.getHeadLemmaId(), idsToMatch)));
+        }
+
+        notWordIds = notWords != null? getIds(notWords) : null;
+        if (notWordIds != null) {
+            IntHashSet idsToAvoid = notWordIds;
+            steps.add(new Step("notWords", SET_COST, c -> !matchesWords(c.getNormalCompoundId(), c.getHeadLemmaId(), idsToAvoid)));
+        }
+
+        steps.sort(Comparator.comparingInt(step -> step.cost));
+
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Reorder the checks of this pattern based on how often they reject the components of a sample.
+     * Checks of the same cost are ordered by decreasing rejection rate, so that the most selective checks run first.
+     * The order of the checks never changes the outcome of a match.
+     *
+     * @param sample components representative of the ones that will be matched
+     * @return this pattern
+     */
+    public ComponentPattern optimise(Collection<? extends StatementComponent> sample) {
+        List<Step> steps = new ArrayList<>(getPlan());
+        Map<Step, Double> rejectionRates = new HashMap<>();
+        List<AbstractComponent> components = new ArrayList<>();
+
+        for (StatementComponent component : sample) {
+            if (component instanceof AbstractComponent && matchesTypes((AbstractComponent) component)) {
+                components.add((AbstractComponent) component);
+            }
+        }
+
+        if (components.isEmpty()) return this;
+
+        for (Step step : steps) {
+            int rejections = 0;
+            for (AbstractComponent component : components) {
+                if (!step.check.test(component)) rejections++;
+            }
+            rejectionRates.put(step, rejections / (double) components.size());
+        }
+
+        steps.sort(Comparator.<Step>comparingInt(step -> step.cost).thenComparing(step -> -rejectionRates.get(step)));
+        plan = Collections.unmodifiableList(steps);
+        logger.info("optimised plan: " + plan + ", rejection rates: " + rejectionRates);
+
+        return this;
+    }
+
+    /**
+     * A single check of the compiled plan.
+     */
+    private static class Step {
+        private final String name;
+        private final int cost;
+        private final Predicate<AbstractComponent> check;
+        private final LongPredicate featureCheck;  // only for checks of the feature word
+
+        Step(String name, int cost, Predicate<AbstractComponent> check) {
+            this(name, cost, check, null);
+        }
+
+        private Step(String name, int cost, Predicate<AbstractComponent> check, LongPredicate featureCheck) {
+            this.name = name;
+            this.cost = cost;
+            this.check = check;
+            this.featureCheck = featureCheck;
+        }
+
+        static Step ofFeatures(String name, int cost, LongPredicate featureCheck) {
+            return new Step(name, cost, c -> featureCheck.test(c.getFeatures()), featureCheck);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The tokens that a sentence must contain for this pattern to be able to match any of its components.
+     * Used to filter sentences before they are parsed, so the requirements must never be stricter than the pattern.
+     * Optional patterns have no requirements.
+     *
+     * @return requirements
+     */
+    List<SentenceFilter.Requirement> getRequirements() {
+        List<SentenceFilter.Requirement> requirements = new ArrayList<>();
+        if (optional) return requirements;
+
+        // the normal compound and head lemma are made from the lemmas of the sentence tokens
+        // (words with apostrophes are skipped since they might be split into several tokens)
+        if (words != null && !words.isEmpty()) {
+            Set<String> parts = new HashSet<>();
+            boolean splittable = false;
+
+            for (String word : words) {
+                if (word.contains("'") || word.contains(",")) splittable = true;
+                Collections.addAll(parts, word.toLowerCase().split(" "));
+            }
+
+            if (!splittable) requirements.add(SentenceFilter.Requirement.words(parts));
+        }
+
+        // 3rd person is the fallback and can be any word
+        if (pointsOfView != null && pointsOfView.length > 0 && !Arrays.asList(pointsOfView).contains(Person.third)) {
+            Set<String> personWords = new HashSet<>();
+            for (Person person : pointsOfView) {
+                if (person == Person.first) personWords.addAll(Lexicon.FIRST_PERSON);
+                if (person == Person.second) personWords.addAll(Lexicon.SECOND_PERSON);
+            }
+            requirements.add(SentenceFilter.Requirement.words(personWords));
+        }
+
+        // 3rd person possessives can also be nouns, e.g. "John's"
+        if (possessivePointsOfView != null && possessivePointsOfView.length > 0 && !Arrays.asList(possessivePointsOfView).contains(Person.third)) {
+            Set<String> possessiveWords = new HashSet<>();
+            for (Person person : possessivePointsOfView) {
+                if (person == Person.first) possessiveWords.addAll(Lexicon.FIRST_PERSON_POSSESSIVES);
+                if (person == Person.second) possessiveWords.addAll(Lexicon.SECOND_PERSON_POSSESSIVES);
+            }
+            requirements.add(SentenceFilter.Requirement.words(possessiveWords));
+        }
+
+        if (partsOfSpeech != null) {
+            Set<String> tags = new HashSet<>();
+            for (Tag tag : partsOfSpeech) tags.addAll(getTagGroup(tag));
+            requirements.add(SentenceFilter.Requirement.tags(tags));
+        }
+
+        if (tagGroups != null) {
+            for (Set<String> tagGroup : tagGroups) requirements.add(SentenceFilter.Requirement.tags(tagGroup));
+        }
+
+        // an empty array matches any preposition
+        if (prepositions != null && prepositions.length > 0) {
+            requirements.add(SentenceFilter.Requirement.words(new HashSet<>(Arrays.asList(prepositions))));
+        }
+
+        // the copula is always a form of "to be"
+        if (copula != null && copula) {
+            requirements.add(SentenceFilter.Requirement.words(Collections.singleton("be")));
+        }
+
+        return requirements;
     }
 
     /**
@@ -390,36 +758,6 @@ public class ComponentPattern implements Pattern {
         return false;
     }
 
-    /**
-     * Whether the person (1st, 2nd, 3rd) of the component matches.
-     *
-     * @param abstractComponent the component to test
-     * @return true if one of the states matches
-     */
-    private boolean matchesPartOfSpeech(AbstractComponent abstractComponent) {
-        Tag partOfSpeechState = null;
-
-        if (abstractComponent.isPronoun()) {
-            partOfSpeechState = Tag.pronoun;
-        } else if (abstractComponent.isProperNoun()) {
-            partOfSpeechState = Tag.properNoun;
-        }  else if (abstractComponent.isNoun()) {
-            partOfSpeechState = Tag.noun;
-        } else if (abstractComponent.isVerb()) {
-            partOfSpeechState = Tag.verb;
-        } else if (abstractComponent.isAdjective()) {
-            partOfSpeechState = Tag.adjective;
-        } else if (abstractComponent.isAdverb()) {
-            partOfSpeechState = Tag.adverb;
-        }
-
-        for (Tag state : partsOfSpeech) {
-            if (partOfSpeechState == state) return true;
-        }
-
-        return false;
-    }
-
     /**
      * Whether the person (1st, 2nd, 3rd) of the component matches.
      *
@@ -435,67 +773,83 @@ public class ComponentPattern implements Pattern {
     }
 
     /**
-     * Whether the person (1st, 2nd, 3rd) of the component matches.
+     * The feature bits representing a set of part-of-speech tags.
      *
-     * @param abstractComponent the component to test
-     * @return true if one of the states matches
+     * @param tags the tags
+     * @return feature mask
      */
-    private boolean matchesPointOfView(AbstractComponent abstractComponent) {
-        Person componentState;
+    private static long getFeatureMask(Tag[] tags) {
+        long mask = 0;
 
-        if (abstractComponent.isFirstPerson()) {
-            componentState = Person.first;
-        } else if (abstractComponent.isSecondPerson()) {
-            componentState = Person.second;
-        } else {
-            componentState = Person.third;
-        }
-
-        for (Person state : pointsOfView) {
-            if (componentState == state) return true;
+        for (Tag tag : tags) {
+            if (tag == Tag.pronoun) {
+                mask |= Features.PRONOUN;
+            } else if (tag == Tag.properNoun) {
+                mask |= Features.PROPER_NOUN;
+            } else if (tag == Tag.noun) {
+                mask |= Features.NOUN;
+            } else if (tag == Tag.verb) {
+                mask |= Features.VERB;
+            } else if (tag == Tag.adjective) {
+                mask |= Features.ADJECTIVE;
+            } else if (tag == Tag.adverb) {
+                mask |= Features.ADVERB;
+            }
         }
 
-        return false;
+        return mask;
     }
 
     /**
-     * Whether the person (1st, 2nd, 3rd) of the component matches.
+     * The feature bits representing a set of persons.
      *
-     * @param abstractComponent the component to test
-     * @return true if one of the states matches
+     * @param persons the persons
+     * @param first the bit of the 1st person
+     * @param second the bit of the 2nd person
+     * @param third the bit of the 3rd person
+     * @return feature mask
      */
-    private boolean matchesPossessivePointOfView(AbstractComponent abstractComponent) {
-        Person componentState = null;
-
-        if (abstractComponent.hasFirstPersonPossessive()) {
-            componentState = Person.first;
-        } else if (abstractComponent.hasSecondPersonPossessive()) {
-            componentState = Person.second;
-        } else if (abstractComponent.hasThirdPersonPossessive()) {
-            componentState = Person.third;
-        }
-
-        for (Person state : possessivePointsOfView) {
-            if (componentState == state) return true;
+    private static long getFeatureMask(Person[] persons, long first, long second, long third) {
+        long mask = 0;
+
+        for (Person person : persons) {
+            if (person == Person.first) {
+                mask |= first;
+            } else if (person == Person.second) {
+                mask |= second;
+            } else if (person == Person.third) {
+                mask |= third;
+            }
         }
 
-        return false;
+        return mask;
     }
 
     /**
-     * Whether the normal compound of a component matches with one of the words of this pattern.
+     * Whether the normal compound or head lemma of a component matches with one of the words of this pattern.
      * If the pattern contains no words, then this method will always return true;
      *
-     * @param abstractComponent the component to test
+     * @param normalCompoundId the id of the normal compound of the component
+     * @param headLemmaId the id of the head lemma of the component
+     * @param idsToMatch the ids of the words
      * @return true if one of the words matches
      */
-    private boolean matchesWords(AbstractComponent abstractComponent, Set<String> wordsToMatch) {
-        if (wordsToMatch.isEmpty()) return true;
+    private static boolean matchesWords(int normalCompoundId, int headLemmaId, IntHashSet idsToMatch) {
+        if (idsToMatch.isEmpty()) return true;
 
-        String normalCompound = abstractComponent.getNormalCompound();
-        if (wordsToMatch.contains(normalCompound)) return true;
-        if (wordsToMatch.contains(abstractComponent.getHead().lemma().toLowerCase())) return true;
+        return idsToMatch.contains(normalCompoundId) || idsToMatch.contains(headLemmaId);
+    }
 
-        return false;
+    /**
+     * The ids of a set of words in the Vocabulary.
+     * Words are interned when the pattern is compiled, since they might only appear in components created later.
+     *
+     * @param words the words
+     * @return ids
+     */
+    private static IntHashSet getIds(Set<String> words) {
+        IntHashSet ids = new IntHashSet(words.size());
+        for (String word : words) ids.add(Vocabulary.getId(word));
+        return ids;
     }
 }
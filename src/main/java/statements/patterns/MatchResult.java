@@ -0,0 +1,89 @@
+package statements.patterns;
+
+import statements.core.Statement;
+import statements.core.StatementComponent;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of matching a Pattern against a component.
+ * Contains everything captured during the match, so the patterns themselves don't need to keep any state.
+ * This means that the same pattern can be used for many matches at the same time.
+ */
+public final class MatchResult {
+    public static final MatchResult NO_MATCH = new MatchResult(false, null, null);
+    public static final MatchResult MATCH = new MatchResult(true, null, null);
+
+    private final boolean matches;
+    private final StatementComponent captured;
+    private final List<StatementComponent> captures;
+
+    MatchResult(boolean matches, StatementComponent captured, List<StatementComponent> captures) {
+        this.matches = matches;
+        this.captured = captured;
+        this.captures = captures != null? captures : Collections.emptyList();
+    }
+
+    /**
+     * Whether the pattern matched.
+     *
+     * @return true if matched
+     */
+    public boolean matches() {
+        return matches;
+    }
+
+    /**
+     * The component captured by the pattern itself (only when the pattern is marked as capturing).
+     * Note: used to capture embedded statements.
+     *
+     * @return captured component or null
+     */
+    public StatementComponent getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Get everything captured by the components of the pattern.
+     * Note: different from getCaptured() which is used to capture embedded statements.
+     *
+     * @param componentTypes the component types to get (all types if none are given)
+     * @return the captured components
+     */
+    public Set<StatementComponent> getCaptures(Class... componentTypes) {
+        Set<StatementComponent> capturedComponents = new HashSet<>();
+
+        for (StatementComponent capture : captures) {
+            if (componentTypes.length == 0) {
+                capturedComponents.add(capture);
+            } else {
+                for (Class componentType : componentTypes) {
+                    if (componentType.equals(capture.getClass())) capturedComponents.add(capture);
+                }
+            }
+        }
+
+        return capturedComponents;
+    }
+
+    /**
+     * The inverse of the getCaptures(...) method.
+     *
+     * @param statement the statement that the captures are from
+     * @param componentTypes the component types that limit the captures
+     * @return the non-captured components
+     */
+    public Set<StatementComponent> getNonCaptures(Statement statement, Class... componentTypes) {
+        Set<StatementComponent> components = statement.getComponents();
+        components.removeAll(getCaptures(componentTypes));
+        return components;
+    }
+
+    @Override
+    public String toString() {
+        return matches? "{match" + (captures.isEmpty()? "" : ", captures: " + captures) + "}" : "{no match}";
+    }
+}
@@ -5,12 +5,21 @@ import statements.core.StatementComponent;
 import java.util.Collection;
 
 public interface Pattern {
-    boolean matches(StatementComponent statementComponent);
-    StatementComponent getCaptured();
+    MatchResult match(StatementComponent statementComponent);
     Class[] getTypes();
     boolean mustMatchAll();
     boolean isOptional();
 
+    /**
+     * Whether the pattern matches a component (ignoring captures).
+     *
+     * @param statementComponent the component to test
+     * @return true if the pattern matches the component
+     */
+    default boolean matches(StatementComponent statementComponent) {
+        return match(statementComponent).matches();
+    }
+
     default boolean containsTypes(Class... componentTypes) {
         for (Class componentType : componentTypes) {
             for (Class type : getTypes()) {
@@ -0,0 +1,173 @@
+package statements.patterns;
+
+import statements.core.*;
+
+import java.util.*;
+
+/**
+ * A set of StatementPatterns indexed for evaluating many patterns against the same statement.
+ *
+ * Most patterns fail either because a required component type is missing or because the verb is wrong,
+ * so the patterns are indexed by the component types they require and by the words of their VerbPatterns.
+ * Only the candidate patterns for a statement are then actually evaluated,
+ * i.e. the cost of matching depends on the number of relevant patterns rather than the total.
+ */
+public class PatternSet {
+    // bits for the component types of a statement
+    static final int SUBJECT = 1;
+    static final int VERB = 1 << 1;
+    static final int DIRECT_OBJECT = 1 << 2;
+    static final int INDIRECT_OBJECT = 1 << 3;
+    static final int STATEMENT = 1 << 4;
+
+    private final List<StatementPattern> patterns;
+    private final Map<StatementPattern, int[]> requiredTypeMasks = new IdentityHashMap<>();
+    private final Map<Integer, List<StatementPattern>> patternsByVerbWord = new HashMap<>();
+    private final List<StatementPattern> patternsWithoutVerbWords = new ArrayList<>();
+
+    public PatternSet(Collection<StatementPattern> patterns) {
+        this.patterns = new ArrayList<>(patterns);
+
+        for (StatementPattern pattern : this.patterns) {
+            List<Integer> masks = new ArrayList<>();
+            Set<String> verbWords = null;
+
+            for (Pattern containedPattern : pattern.getPatterns()) {
+                if (containedPattern.isOptional()) continue;
+
+                // every non-optional pattern requires one of its types to be present
+                int mask = getTypeMask(containedPattern.getTypes());
+                if (mask != 0) masks.add(mask);
+
+                // the verb of the statement must match the words of a non-optional VerbPattern
+                if (containedPattern instanceof ComponentPattern && mask == VERB) {
+                    Set<String> words = ((ComponentPattern) containedPattern).getWords();
+                    if (words != null && !words.isEmpty()) verbWords = words;
+                }
+            }
+
+            int[] maskArray = new int[masks.size()];
+            for (int i = 0; i < maskArray.length; i++) maskArray[i] = masks.get(i);
+            requiredTypeMasks.put(pattern, maskArray);
+
+            if (verbWords != null) {
+                for (String word : verbWords) {
+                    int wordId = Vocabulary.getId(word);
+                    List<StatementPattern> wordPatterns = patternsByVerbWord.getOrDefault(wordId, new ArrayList<>());
+                    wordPatterns.add(pattern);
+                    patternsByVerbWord.put(wordId, wordPatterns);
+                }
+            } else {
+                patternsWithoutVerbWords.add(pattern);
+            }
+        }
+    }
+
+    public PatternSet(StatementPattern... patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    /**
+     * The patterns that might match a statement.
+     * Every pattern that is not returned is guaranteed not to match the statement.
+     *
+     * @param statement the statement to find candidates for
+     * @return candidate patterns
+     */
+    public Set<StatementPattern> candidates(Statement statement) {
+        Set<StatementPattern> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<StatementComponent> components = statement.getComponents();
+        int typeMask = 0;
+
+        for (StatementComponent component : components) {
+            typeMask |= getTypeMask(component.getClass());
+
+            // a VerbPattern matches either the normal compound or the head lemma of a verb
+            if (component instanceof Verb && !patternsByVerbWord.isEmpty()) {
+                Verb verb = (Verb) component;
+                addCandidates(candidates, patternsByVerbWord.get(verb.getNormalCompoundId()));
+                addCandidates(candidates, patternsByVerbWord.get(verb.getHeadLemmaId()));
+            }
+        }
+
+        // the type mask is only complete after the loop, so the verb candidates are checked again
+        int statementTypeMask = typeMask;
+        candidates.removeIf(pattern -> !hasRequiredTypes(pattern, statementTypeMask));
+        for (StatementPattern pattern : patternsWithoutVerbWords) {
+            if (hasRequiredTypes(pattern, statementTypeMask)) candidates.add(pattern);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Evaluate the candidate patterns of a statement.
+     *
+     * @param statement the statement to match
+     * @return the results of the matching patterns
+     */
+    public Map<StatementPattern, MatchResult> match(Statement statement) {
+        Map<StatementPattern, MatchResult> results = new IdentityHashMap<>();
+
+        for (StatementPattern pattern : candidates(statement)) {
+            MatchResult result = pattern.match(statement);
+            if (result.matches()) results.put(pattern, result);
+        }
+
+        return results;
+    }
+
+    /**
+     * The patterns of this set.
+     *
+     * @return patterns
+     */
+    public List<StatementPattern> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    public int size() {
+        return patterns.size();
+    }
+
+    private static void addCandidates(Set<StatementPattern> candidates, List<StatementPattern> patterns) {
+        if (patterns != null) candidates.addAll(patterns);
+    }
+
+    private boolean hasRequiredTypes(StatementPattern pattern, int typeMask) {
+        for (int requiredTypeMask : requiredTypeMasks.get(pattern)) {
+            if ((typeMask & requiredTypeMask) == 0) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * The bits representing a set of component types.
+     * Unknown types produce 0, i.e. they are never used to rule out patterns.
+     *
+     * @param types the component types
+     * @return type mask
+     */
+    static int getTypeMask(Class... types) {
+        int mask = 0;
+
+        for (Class type : types) {
+            if (type.equals(Subject.class)) {
+                mask |= SUBJECT;
+            } else if (type.equals(Verb.class)) {
+                mask |= VERB;
+            } else if (type.equals(DirectObject.class)) {
+                mask |= DIRECT_OBJECT;
+            } else if (type.equals(IndirectObject.class)) {
+                mask |= INDIRECT_OBJECT;
+            } else if (type.equals(Statement.class)) {
+                mask |= STATEMENT;
+            } else {
+                return 0;
+            }
+        }
+
+        return mask;
+    }
+}
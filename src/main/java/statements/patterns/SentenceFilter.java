@@ -0,0 +1,122 @@
+package statements.patterns;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.*;
+
+/**
+ * Decides whether a sentence can possibly contain statements matching a set of StatementPatterns.
+ * Only the tokens of the sentence are used (words, lemmas and part-of-speech tags),
+ * so sentences can be filtered before the costly dependency parsing takes place.
+ *
+ * The filter is conservative: a sentence is only rejected when it lacks tokens that every pattern requires,
+ * e.g. a first person pronoun or one of the words of a VerbPattern.
+ */
+public class SentenceFilter {
+    private final List<List<Requirement>> alternatives = new ArrayList<>();
+    private boolean keepAll;
+
+    public SentenceFilter(Collection<StatementPattern> patterns) {
+        // when no patterns are given, nothing can be ruled out
+        if (patterns.isEmpty()) keepAll = true;
+
+        for (StatementPattern pattern : patterns) {
+            List<Requirement> requirements = pattern.getRequirements();
+
+            // a pattern without requirements can match any sentence
+            if (requirements.isEmpty()) keepAll = true;
+
+            alternatives.add(requirements);
+        }
+    }
+
+    public SentenceFilter(StatementPattern... patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    /**
+     * Whether a sentence should be kept for parsing and statement extraction.
+     *
+     * @param sentence the sentence to test
+     * @return true if one of the patterns might match a statement in the sentence
+     */
+    public boolean keep(CoreMap sentence) {
+        return keep(sentence.get(CoreAnnotations.TokensAnnotation.class));
+    }
+
+    /**
+     * Whether a list of tokens should be kept for parsing and statement extraction.
+     *
+     * @param tokens the tokens to test
+     * @return true if one of the patterns might match a statement made from the tokens
+     */
+    public boolean keep(List<CoreLabel> tokens) {
+        if (keepAll) return true;
+        if (tokens == null) return false;
+
+        // the tokens are normalised once, rather than once for every requirement
+        Set<String> words = new HashSet<>();
+        Set<String> tags = new HashSet<>();
+        for (CoreLabel token : tokens) {
+            if (token.word() != null) words.add(token.word().toLowerCase());
+            if (token.lemma() != null) words.add(token.lemma().toLowerCase());
+            if (token.tag() != null) tags.add(token.tag());
+        }
+
+        // only one of the patterns needs to have all of its requirements met
+        for (List<Requirement> requirements : alternatives) {
+            boolean met = true;
+
+            for (Requirement requirement : requirements) {
+                if (!requirement.isMetBy(words, tags)) {
+                    met = false;
+                    break;
+                }
+            }
+
+            if (met) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * A requirement for at least one token in a sentence.
+     * The token must either have one of the words (as its lowercase word or lemma) or one of the tags.
+     */
+    static class Requirement {
+        private final Set<String> words;
+        private final Set<String> tags;
+
+        private Requirement(Set<String> words, Set<String> tags) {
+            this.words = words;
+            this.tags = tags;
+        }
+
+        static Requirement words(Set<String> words) {
+            return new Requirement(words, Collections.emptySet());
+        }
+
+        static Requirement tags(Set<String> tags) {
+            return new Requirement(Collections.emptySet(), tags);
+        }
+
+        private boolean isMetBy(Set<String> sentenceWords, Set<String> sentenceTags) {
+            for (String word : words) if (sentenceWords.contains(word)) return true;
+            for (String tag : tags) if (sentenceTags.contains(tag)) return true;
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return words.isEmpty()? "tags: " + tags : "words: " + words;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return keepAll? "{keep all}" : alternatives.toString();
+    }
+}
@@ -0,0 +1,241 @@
+package statements.patterns;
+
+import statements.core.*;
+
+import java.util.*;
+
+/**
+ * A collection of statements laid out as columns for matching patterns against all of them at once.
+ *
+ * For every statement (= row) the batch stores a bitmap of the component types that are present
+ * and, for each of the subject, verb, direct object and indirect object, the feature word of the component
+ * along with the ids of its normal compound and head lemma in the Vocabulary.
+ * The component patterns of a StatementPattern are then evaluated column by column in primitive loops,
+ * and the statements are only matched the regular way when a pattern has checks that aren't covered by the columns.
+ */
+public class StatementBatch {
+    // the columns of each role, i.e. the component types that a statement has at most one of
+    private static final int SUBJECT = 0;
+    private static final int VERB = 1;
+    private static final int DIRECT_OBJECT = 2;
+    private static final int INDIRECT_OBJECT = 3;
+    private static final int ROLES = 4;
+
+    private final Statement[] statements;
+    private final int[] types;
+    private final long[][] features = new long[ROLES][];
+    private final int[][] compoundIds = new int[ROLES][];
+    private final int[][] lemmaIds = new int[ROLES][];
+    private final AbstractComponent[][] components = new AbstractComponent[ROLES][];
+
+    // rows that can't be represented by the columns, e.g. merged statements with two subjects
+    private final BitSet irregular = new BitSet();
+
+    public StatementBatch(Collection<Statement> statements) {
+        this.statements = statements.toArray(new Statement[statements.size()]);
+        int size = this.statements.length;
+        types = new int[size];
+
+        for (int role = 0; role < ROLES; role++) {
+            features[role] = new long[size];
+            compoundIds[role] = new int[size];
+            lemmaIds[role] = new int[size];
+            components[role] = new AbstractComponent[size];
+            Arrays.fill(compoundIds[role], -1);
+            Arrays.fill(lemmaIds[role], -1);
+        }
+
+        for (int row = 0; row < size; row++) {
+            Statement statement = this.statements[row];
+            int roleCount = 0;
+
+            add(row, SUBJECT, statement.getSubject());
+            add(row, VERB, statement.getVerb());
+            add(row, DIRECT_OBJECT, statement.getDirectObject());
+            add(row, INDIRECT_OBJECT, statement.getIndirectObject());
+            if (statement.getEmbeddedStatement() != null) types[row] |= PatternSet.STATEMENT;
+
+            for (int role = 0; role < ROLES; role++) {
+                if (components[role][row] != null) roleCount++;
+            }
+
+            // every pure component must be accounted for by the columns
+            if (statement.getPureComponents().size() != roleCount) irregular.set(row);
+        }
+    }
+
+    /**
+     * Add a component to the columns of a row.
+     *
+     * @param row the row of the statement
+     * @param role the role of the component
+     * @param component the component (may be null)
+     */
+    private void add(int row, int role, AbstractComponent component) {
+        if (component == null) return;
+
+        types[row] |= 1 << role;
+        features[role][row] = component.getFeatures();
+        compoundIds[role][row] = component.getNormalCompoundId();
+        lemmaIds[role][row] = component.getHeadLemmaId();
+        components[role][row] = component;
+    }
+
+    /**
+     * The number of statements in the batch.
+     *
+     * @return row count
+     */
+    public int size() {
+        return statements.length;
+    }
+
+    /**
+     * The statement of a row.
+     *
+     * @param row the row
+     * @return statement
+     */
+    public Statement get(int row) {
+        return statements[row];
+    }
+
+    /**
+     * Match a pattern against every statement of the batch.
+     * The result is the same as matching the pattern against each statement separately.
+     *
+     * @param pattern the pattern to match
+     * @return the matches and captures of every row
+     */
+    public BatchResult match(StatementPattern pattern) {
+        BitSet candidates = new BitSet(statements.length);
+        candidates.set(0, statements.length);
+
+        // the column checks are exact for regular rows, so they either decide the match or rule it out
+        boolean exact = !pattern.hasStatementChecks();
+        List<ColumnCheck> checks = new ArrayList<>();
+
+        for (Pattern containedPattern : pattern.getPatterns()) {
+            ColumnCheck check = containedPattern instanceof ComponentPattern? getColumnCheck((ComponentPattern) containedPattern) : null;
+
+            if (check != null) {
+                checks.add(check);
+            } else {
+                exact = false;
+            }
+        }
+
+        for (ColumnCheck check : checks) {
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (!irregular.get(row) && !check.matches(row)) candidates.clear(row);
+            }
+        }
+
+        // the captures of a row are found while the remaining rows are verified
+        int[] captureOffsets = new int[statements.length + 1];
+        List<StatementComponent> captures = new ArrayList<>();
+
+        for (int row = 0; row < statements.length; row++) {
+            captureOffsets[row] = captures.size();
+            if (!candidates.get(row)) continue;
+
+            if (exact && !irregular.get(row) && addCaptures(row, checks, captures)) continue;
+
+            MatchResult result = pattern.match(statements[row]);
+            if (result.matches()) {
+                captures.addAll(result.getCaptures());
+            } else {
+                candidates.clear(row);
+            }
+        }
+
+        captureOffsets[statements.length] = captures.size();
+
+        return new BatchResult(candidates, captureOffsets, captures.toArray(new StatementComponent[captures.size()]));
+    }
+
+    /**
+     * Add the captures of a row that was matched using the columns alone.
+     * Only possible when each capturing pattern can match a single role,
+     * otherwise the capture depends on the order of the components and the row must be matched the regular way.
+     *
+     * @param row the row
+     * @param checks the column checks of the pattern
+     * @param captures the captures to add to
+     * @return true if the captures were added
+     */
+    private boolean addCaptures(int row, List<ColumnCheck> checks, List<StatementComponent> captures) {
+        for (ColumnCheck check : checks) {
+            if (check.pattern.isCapture() && Integer.bitCount(check.roleMask) != 1) return false;
+        }
+
+        for (ColumnCheck check : checks) {
+            if (!check.pattern.isCapture()) continue;
+
+            int role = Integer.numberOfTrailingZeros(check.roleMask);
+            if (components[role][row] != null) captures.add(components[role][row]);
+        }
+
+        return true;
+    }
+
+    /**
+     * The column check of a component pattern.
+     *
+     * @param pattern the pattern
+     * @return the check, or null if the pattern can't be evaluated using the columns
+     */
+    private ColumnCheck getColumnCheck(ComponentPattern pattern) {
+        if (pattern.hasResidualChecks()) return null;
+
+        // no types means any component type
+        int roleMask = pattern.getTypes().length == 0? (1 << ROLES) - 1 : PatternSet.getTypeMask(pattern.getTypes());
+        if (roleMask == 0 || (roleMask & PatternSet.STATEMENT) != 0) return null;
+
+        return new ColumnCheck(pattern, roleMask);
+    }
+
+    /**
+     * A component pattern compiled into checks of the columns.
+     */
+    private class ColumnCheck {
+        private final ComponentPattern pattern;
+        private final int roleMask;
+
+        ColumnCheck(ComponentPattern pattern, int roleMask) {
+            this.pattern = pattern;
+            this.roleMask = roleMask;
+        }
+
+        /**
+         * Whether the contained pattern matches a row.
+         * Follows the same semantics as StatementPattern for optional and must-match-all patterns.
+         *
+         * @param row the row
+         * @return true if matched
+         */
+        boolean matches(int row) {
+            int present = types[row] & roleMask;
+
+            // additional step taken if this pattern must match all of its specified type
+            if (pattern.mustMatchAll()) {
+                for (int role = 0; role < ROLES; role++) {
+                    if ((present & (1 << role)) != 0 && !matches(role, row)) return false;
+                }
+            }
+
+            // optional patterns are only matched if their types are present
+            if (pattern.isOptional() && (pattern.getTypes().length == 0 || present == 0)) return true;
+
+            for (int role = 0; role < ROLES; role++) {
+                if ((present & (1 << role)) != 0 && matches(role, row)) return true;
+            }
+
+            return false;
+        }
+
+        private boolean matches(int role, int row) {
+            return pattern.matchesFeatures(features[role][row]) && pattern.matchesWordIds(compoundIds[role][row], lemmaIds[role][row]);
+        }
+    }
+}
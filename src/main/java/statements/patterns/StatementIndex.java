@@ -0,0 +1,315 @@
+package statements.patterns;
+
+import statements.core.*;
+
+import java.util.*;
+
+/**
+ * An inverted index over statements for finding the statements matching a StatementPattern without a linear scan.
+ *
+ * Each statement gets an id in the order it is added and the ids are kept in sorted posting lists keyed on
+ * the component types of the statement and, for each of the subject, verb, direct object and indirect object,
+ * the word ids (normal compound and head lemma, see Vocabulary) and the feature bits of the component.
+ * A pattern is translated into the posting lists that its statements must be in, and only the candidates found
+ * in all of them are verified using the pattern itself.
+ *
+ * Note: the index is not thread-safe, statements must not be added while the index is queried.
+ */
+public class StatementIndex {
+    private static final int ROLES = 4;
+    private static final int[] NONE = new int[0];
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final Postings[] typePostings = new Postings[ROLES + 1];
+    private final List<Map<Integer, Postings>> wordPostings = new ArrayList<>();
+    private final Postings[][] featurePostings = new Postings[ROLES][Long.SIZE];
+
+    public StatementIndex() {
+        for (int type = 0; type < typePostings.length; type++) typePostings[type] = new Postings();
+        for (int role = 0; role < ROLES; role++) wordPostings.add(new HashMap<>());
+    }
+
+    public StatementIndex(Collection<Statement> statements) {
+        this();
+        addAll(statements);
+    }
+
+    /**
+     * Add a statement to the index.
+     *
+     * @param statement the statement to add
+     * @return the id of the statement
+     */
+    public int add(Statement statement) {
+        int id = statements.size();
+        statements.add(statement);
+
+        for (AbstractComponent component : statement.getPureComponents()) {
+            int role = getRole(component.getClass());
+            if (role == -1) continue;
+
+            typePostings[role].add(id);
+            add(wordPostings.get(role), component.getNormalCompoundId(), id);
+            add(wordPostings.get(role), component.getHeadLemmaId(), id);
+
+            // every bit that is set, apart from the one marking the features as computed
+            long features = component.getFeatures() & ~(1L << (Long.SIZE - 1));
+            while (features != 0) {
+                int bit = Long.numberOfTrailingZeros(features);
+                if (featurePostings[role][bit] == null) featurePostings[role][bit] = new Postings();
+                featurePostings[role][bit].add(id);
+                features &= features - 1;
+            }
+        }
+
+        if (statement.getEmbeddedStatement() != null) typePostings[ROLES].add(id);
+
+        return id;
+    }
+
+    private static void add(Map<Integer, Postings> postingsMap, int wordId, int id) {
+        Postings postings = postingsMap.get(wordId);
+
+        if (postings == null) {
+            postings = new Postings();
+            postingsMap.put(wordId, postings);
+        }
+
+        postings.add(id);
+    }
+
+    public void addAll(Collection<Statement> statements) {
+        for (Statement statement : statements) add(statement);
+    }
+
+    /**
+     * The number of statements in the index.
+     *
+     * @return statement count
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * The statement with a specific id.
+     *
+     * @param id the id
+     * @return statement
+     */
+    public Statement get(int id) {
+        return statements.get(id);
+    }
+
+    /**
+     * The statements that might match a pattern.
+     * Every statement that is not returned is guaranteed not to match the pattern.
+     *
+     * @param pattern the pattern
+     * @return candidate statements in the order they were added
+     */
+    public List<Statement> candidates(StatementPattern pattern) {
+        int[] ids = getCandidateIds(pattern);
+        List<Statement> candidates = new ArrayList<>();
+
+        if (ids == null) {
+            candidates.addAll(statements);
+        } else {
+            for (int id : ids) candidates.add(statements.get(id));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Match a pattern against the statements of the index.
+     *
+     * @param pattern the pattern to match
+     * @return the results of the matching statements in the order they were added
+     */
+    public Map<Statement, MatchResult> match(StatementPattern pattern) {
+        Map<Statement, MatchResult> results = new LinkedHashMap<>();
+
+        for (Statement statement : candidates(pattern)) {
+            MatchResult result = pattern.match(statement);
+            if (result.matches()) results.put(statement, result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Find the statements matching a pattern.
+     *
+     * @param pattern the pattern to match
+     * @return the matching statements in the order they were added
+     */
+    public List<Statement> find(StatementPattern pattern) {
+        return new ArrayList<>(match(pattern).keySet());
+    }
+
+    /**
+     * The ids of the statements that might match a pattern.
+     * Every non-optional contained pattern must match, so the candidates of each are intersected.
+     *
+     * @param pattern the pattern
+     * @return sorted ids, or null if every statement is a candidate
+     */
+    private int[] getCandidateIds(StatementPattern pattern) {
+        int[] ids = null;
+
+        for (Pattern containedPattern : pattern.getPatterns()) {
+            if (containedPattern.isOptional()) continue;
+
+            if (containedPattern instanceof StatementPattern) {
+                ids = intersect(ids, typePostings[ROLES].toArray());
+            } else if (containedPattern instanceof ComponentPattern) {
+                int[] componentIds = getCandidateIds((ComponentPattern) containedPattern);
+                if (componentIds != null) ids = intersect(ids, componentIds);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * The ids of the statements containing a component that might match a component pattern.
+     *
+     * @param pattern the pattern
+     * @return sorted ids, or null if every statement is a candidate
+     */
+    private int[] getCandidateIds(ComponentPattern pattern) {
+        int[] ids = NONE;
+        boolean indexed = false;
+
+        // no types means any component type
+        for (Class type : pattern.getTypes().length > 0? pattern.getTypes() : new Class[] { Subject.class, Verb.class, DirectObject.class, IndirectObject.class }) {
+            int role = getRole(type);
+            if (role == -1) return null;  // can't rule out anything for unknown types
+
+            int[] roleIds = typePostings[role].toArray();
+
+            if (pattern.getWords() != null && !pattern.getWords().isEmpty()) {
+                int[] wordIds = NONE;
+                for (String word : pattern.getWords()) {
+                    Postings postings = wordPostings.get(role).get(Vocabulary.findId(word));
+                    if (postings != null) wordIds = union(wordIds, postings.toArray());
+                }
+                roleIds = intersect(roleIds, wordIds);
+            }
+
+            long required = pattern.getRequiredFeatures();
+            while (required != 0) {
+                roleIds = intersect(roleIds, getFeatureIds(role, Long.numberOfTrailingZeros(required)));
+                required &= required - 1;
+            }
+
+            for (long group : pattern.getRequiredFeatureGroups()) {
+                int[] groupIds = NONE;
+                while (group != 0) {
+                    groupIds = union(groupIds, getFeatureIds(role, Long.numberOfTrailingZeros(group)));
+                    group &= group - 1;
+                }
+                roleIds = intersect(roleIds, groupIds);
+            }
+
+            ids = union(ids, roleIds);
+            indexed = true;
+        }
+
+        return indexed? ids : null;
+    }
+
+    private int[] getFeatureIds(int role, int bit) {
+        Postings postings = featurePostings[role][bit];
+        return postings != null? postings.toArray() : NONE;
+    }
+
+    /**
+     * The role of a component type, i.e. the type's position in the posting lists.
+     *
+     * @param type the component type
+     * @return role, or -1 for unknown types
+     */
+    private static int getRole(Class type) {
+        int typeMask = PatternSet.getTypeMask(type);
+        return Integer.bitCount(typeMask) == 1 && typeMask != PatternSet.STATEMENT? Integer.numberOfTrailingZeros(typeMask) : -1;
+    }
+
+    /**
+     * The intersection of two sorted id arrays.
+     *
+     * @param a sorted ids, or null for all ids
+     * @param b sorted ids
+     * @return sorted ids
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        if (a == null) return b;
+
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, size = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * The union of two sorted id arrays.
+     *
+     * @param a sorted ids
+     * @param b sorted ids
+     * @return sorted ids
+     */
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[size++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * A sorted list of statement ids.
+     * Ids are added in increasing order, so they are kept sorted by just appending them.
+     */
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            // a statement is only added once, even if several of its words or components are the same
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -4,8 +4,7 @@ import statements.core.AbstractComponent;
 import statements.core.Statement;
 import statements.core.StatementComponent;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 public class StatementPattern implements Pattern {
     private final Pattern[] patterns;
@@ -15,13 +14,18 @@ public class StatementPattern implements Pattern {
      * Used to capture certain components (similar to how it works in regex).
      */
     private boolean capture;
-    private Statement captured;
     private boolean optional;
     private Integer minSize;
     private Integer maxSize;
     private Boolean question;
     private Boolean citation;
 
+    /**
+     * The contained patterns in order of evaluation, along with the patterns whose types must be present.
+     * Compiled the first time the pattern is matched.
+     */
+    private volatile Plan plan;
+
     public StatementPattern(Pattern... patterns) {
         this.patterns = patterns;
     }
@@ -30,6 +34,26 @@ public class StatementPattern implements Pattern {
         return types;
     }
 
+    /**
+     * The contained patterns.
+     * Used by the PatternSet to index patterns.
+     *
+     * @return patterns
+     */
+    Pattern[] getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Whether the pattern has checks for the statement as a whole, rather than for its components.
+     * Used by the StatementBatch to find out which patterns can be evaluated using its columns alone.
+     *
+     * @return true if the pattern has statement checks
+     */
+    boolean hasStatementChecks() {
+        return question != null || citation != null || minSize != null || maxSize != null;
+    }
+
     /**
      * Capture this statement for processing.
      */
@@ -56,16 +80,6 @@ public class StatementPattern implements Pattern {
         return citation(true);
     }
 
-    /**
-     * Get the Statement captured during the latest match.
-     * Note: used to capture embedded statements.
-     *
-     * @return captured component
-     */
-    public Statement getCaptured() {
-        return captured;
-    }
-
     /**
      * Mark this statement as optional.
      */
@@ -91,86 +105,158 @@ public class StatementPattern implements Pattern {
     }
 
     /**
-     * Get everything captured by this the components of this pattern (when entire pattern matches).
-     * Note: different from getCaptured(...) which is used to capture embedded statements.
+     * Match this StatementPattern against a component.
+     * The captures of the contained patterns are available from the result.
      *
-     * @param componentTypes the component types to get
-     * @return the captured components
+     * @param statementComponent the component to test
+     * @return the result of the match
      */
-    public Set<StatementComponent> getCaptures(Class... componentTypes) {
-        Set<StatementComponent> captures = new HashSet<>();
+    public MatchResult match(StatementComponent statementComponent) {
+        if (statementComponent == null) return MatchResult.NO_MATCH;
 
-        for (Pattern pattern : patterns) {
-            if (pattern.getCaptured() != null) {
-                if (componentTypes.length == 0) {
-                    captures.add(pattern.getCaptured());
-                } else if (containsTypes(componentTypes)) {
-                    captures.add(pattern.getCaptured());
+        // this pattern can only match statements!
+        if (statementComponent instanceof Statement) {
+            Statement statement = (Statement) statementComponent;
+            Set<StatementComponent> components = statement.getComponents();
+            if (components == null) return MatchResult.NO_MATCH;
+
+            // check statement booleans first
+            if (question != null && statement.isQuestion() != question) return MatchResult.NO_MATCH;
+            if (citation != null && statement.isCitation() != citation) return MatchResult.NO_MATCH;
+
+            // it is possible to also state a preferred size
+            if (minSize != null && components.size() < minSize) return MatchResult.NO_MATCH;
+            if (maxSize != null && components.size() > maxSize) return MatchResult.NO_MATCH;
+
+            // reject quickly when a component type required by a contained pattern is missing
+            Plan currentPlan = getPlan();
+            for (Pattern pattern : currentPlan.requiredTypePatterns) {
+                if (!pattern.containsTypes(components)) return MatchResult.NO_MATCH;
+            }
+
+            // for the entire statement to match, every contained pattern must match
+            List<StatementComponent> captures = null;
+            for (Pattern pattern : currentPlan.patterns) {
+                MatchResult result = match(pattern, components);
+                if (!result.matches()) return MatchResult.NO_MATCH;
+
+                if (result.getCaptured() != null) {
+                    if (captures == null) captures = new ArrayList<>();
+                    captures.add(result.getCaptured());
                 }
             }
+
+            return new MatchResult(true, capture? statement : null, captures);
         }
 
-        return captures;
+        return MatchResult.NO_MATCH;
     }
 
     /**
-     * The inverse of the getCaptures(...) method.
+     * The compiled plan of this pattern.
      *
-     * @param statement the statement that the captures are from
-     * @param componentTypes the component types that limit the captures
-     * @return the non-captured components
+     * @return plan
      */
-    public Set<StatementComponent> getNonCaptures(Statement statement, Class... componentTypes) {
-        Set<StatementComponent> components = statement.getComponents();
-        components.removeAll(getCaptures(componentTypes));
-        return components;
+    private Plan getPlan() {
+        Plan currentPlan = plan;
+
+        if (currentPlan == null) {
+            currentPlan = compile(Collections.emptyMap());
+            plan = currentPlan;
+        }
+
+        return currentPlan;
     }
 
     /**
-     * Match this StatementPattern against a component.
+     * Compile the contained patterns into a plan.
+     * Component patterns are evaluated before embedded statement patterns, since the latter are much more costly.
      *
-     * @param statementComponent the component to test
-     * @return true if the pattern matches the component
+     * @param rejectionRates optional rejection rates used to order the component patterns (most selective first)
+     * @return plan
      */
-    public boolean matches(StatementComponent statementComponent) {
-        if (statementComponent == null) return false;
+    private Plan compile(Map<Pattern, Double> rejectionRates) {
+        List<Pattern> componentPatterns = new ArrayList<>();
+        List<Pattern> statementPatterns = new ArrayList<>();
+        List<Pattern> requiredTypePatterns = new ArrayList<>();
 
-        // this pattern can only match statements!
-        if (statementComponent instanceof Statement) {
-            Statement statement = (Statement) statementComponent;
-            Set<StatementComponent> components = statement.getComponents();
-            if (components == null) return false;
+        for (Pattern pattern : patterns) {
+            if (pattern instanceof StatementPattern) {
+                statementPatterns.add(pattern);
+            } else {
+                componentPatterns.add(pattern);
+            }
 
-            // check statement booleans first
-            if (question != null && statement.isQuestion() != question) return false;
-            if (citation != null && statement.isCitation() != citation) return false;
+            // optional patterns also match when their types are missing
+            if (!pattern.isOptional() && pattern.getTypes().length > 0) requiredTypePatterns.add(pattern);
+        }
 
-            // it is possible to also state a preferred size
-            if (minSize != null && components.size() < minSize) return false;
-            if (maxSize != null && components.size() > maxSize) return false;
+        componentPatterns.sort(Comparator.comparing(pattern -> -rejectionRates.getOrDefault(pattern, 0.0)));
+        componentPatterns.addAll(statementPatterns);
 
-            // for the entire statement to match, every contained pattern must match
-            for (Pattern pattern : patterns) {
-                if (!matches(pattern, components)) return false;
+        return new Plan(componentPatterns.toArray(new Pattern[componentPatterns.size()]), requiredTypePatterns.toArray(new Pattern[requiredTypePatterns.size()]));
+    }
+
+    /**
+     * Reorder the contained patterns (and their own checks) based on how often they reject the statements of a sample.
+     * The order never changes the outcome of a match.
+     *
+     * @param sample statements representative of the ones that will be matched
+     * @return this pattern
+     */
+    public StatementPattern optimise(Collection<Statement> sample) {
+        List<StatementComponent> components = new ArrayList<>();
+        List<Statement> embeddedStatements = new ArrayList<>();
+
+        for (Statement statement : sample) {
+            for (StatementComponent component : statement.getComponents()) {
+                components.add(component);
+                if (component instanceof Statement) embeddedStatements.add((Statement) component);
             }
+        }
 
-            // note: must always be final step before returning true!
-            if (capture) captured = statement;
+        for (Pattern pattern : patterns) {
+            if (pattern instanceof ComponentPattern) ((ComponentPattern) pattern).optimise(components);
+            if (pattern instanceof StatementPattern) ((StatementPattern) pattern).optimise(embeddedStatements);
+        }
 
-            return true;
+        Map<Pattern, Double> rejectionRates = new HashMap<>();
+        if (!sample.isEmpty()) {
+            for (Pattern pattern : patterns) {
+                int rejections = 0;
+                for (Statement statement : sample) {
+                    if (!match(pattern, statement.getComponents()).matches()) rejections++;
+                }
+                rejectionRates.put(pattern, rejections / (double) sample.size());
+            }
         }
 
-        return false;
+        plan = compile(rejectionRates);
+
+        return this;
+    }
+
+    /**
+     * The order of evaluation for the contained patterns.
+     */
+    private static class Plan {
+        private final Pattern[] patterns;
+        private final Pattern[] requiredTypePatterns;
+
+        Plan(Pattern[] patterns, Pattern[] requiredTypePatterns) {
+            this.patterns = patterns;
+            this.requiredTypePatterns = requiredTypePatterns;
+        }
     }
 
     /**
-     * Whether or not a contained pattern matches a component in a set of components.
+     * Match a contained pattern against a set of components.
      *
      * @param pattern the pattern to match against
      * @param components the set of components to test
-     * @return true if one of the components matches
+     * @return the result of the first matching component
      */
-    private boolean matches(Pattern pattern, Set<StatementComponent> components) {
+    private MatchResult match(Pattern pattern, Set<StatementComponent> components) {
         // additional step taken if this pattern must match all of its specified type
         // all components of the relevant types are checked and if one doesn't match, the entire match fails
         if (pattern.mustMatchAll() && pattern instanceof ComponentPattern) {
@@ -178,22 +264,44 @@ public class StatementPattern implements Pattern {
 
             for (StatementComponent component : components) {
                 if (component != null && component instanceof AbstractComponent) {
-                    if (componentPattern.matchesTypes((AbstractComponent) component) && !pattern.matches(component)) return false;
+                    if (componentPattern.matchesTypes((AbstractComponent) component) && !pattern.matches(component)) return MatchResult.NO_MATCH;
                 }
             }
         }
 
         // optional patterns are only matched if their types exist among the components tested
         // very useful for ensuring components have a specific form (if they ever appear)
-        if (pattern.isOptional() && !pattern.containsTypes(components)) return true;
+        if (pattern.isOptional() && !pattern.containsTypes(components)) return MatchResult.MATCH;
 
         // regular matching
         // only one match is needed
         for (StatementComponent component : components) {
-            if (pattern.matches(component)) return true;
+            MatchResult result = pattern.match(component);
+            if (result.matches()) return result;
+        }
+
+        return MatchResult.NO_MATCH;
+    }
+
+    /**
+     * The tokens that a sentence must contain for this pattern to be able to match any of its statements.
+     * Every non-optional contained pattern must match, so their requirements are combined.
+     *
+     * @return requirements
+     */
+    List<SentenceFilter.Requirement> getRequirements() {
+        List<SentenceFilter.Requirement> requirements = new ArrayList<>();
+        if (optional) return requirements;
+
+        for (Pattern pattern : patterns) {
+            if (pattern instanceof ComponentPattern) {
+                requirements.addAll(((ComponentPattern) pattern).getRequirements());
+            } else if (pattern instanceof StatementPattern) {
+                requirements.addAll(((StatementPattern) pattern).getRequirements());
+            }
         }
 
-        return false;
+        return requirements;
     }
 
     @Override
@@ -0,0 +1,243 @@
+package statements.patterns;
+
+import edu.mit.jwi.item.POS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * The synonym sets used by the patterns, precompiled from Wordnet into a compact file.
+ *
+ * Expanding the synonyms requires opening Wordnet, which is slow and requires the dictionary to be present.
+ * Instead, the synonyms are expanded once and written to a versioned file that is loaded at startup.
+ * The file is only ever written explicitly, i.e. by running the main method of this class (the synonymLexicon task).
+ * Sets that are missing from the file (or were made from other seed words) are still expanded using Wordnet
+ * when loaded, but they are not saved.
+ */
+public class SynonymLexicon {
+    private static final Logger logger = LoggerFactory.getLogger(SynonymLexicon.class);
+
+    public static final String PATH = "wordnet/synonyms.lexicon";
+
+    // the file starts with "SYNL" followed by the format version
+    private static final int MAGIC = 0x53594E4C;
+    private static final int VERSION = 1;
+
+    private final Path path;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, Entry> missingEntries = new LinkedHashMap<>();
+    private boolean changed;
+
+    public SynonymLexicon(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Load the lexicon from its file.
+     * An unreadable file or one with a different version is treated like a missing file, i.e. it will be regenerated.
+     *
+     * @param path the path of the file
+     * @return the lexicon (empty if the file couldn't be loaded)
+     */
+    public static SynonymLexicon load(Path path) {
+        SynonymLexicon lexicon = new SynonymLexicon(path);
+        if (!Files.exists(path)) return lexicon;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("not a synonym lexicon");
+
+            int version = in.readInt();
+            if (version != VERSION) {
+                logger.info("ignoring synonym lexicon " + path + " with version " + version + ", expected " + VERSION);
+                return lexicon;
+            }
+
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String name = in.readUTF();
+                POS pos = POS.valueOf(in.readUTF());
+                String[] seeds = readStrings(in);
+                String[] synonyms = readStrings(in);
+                lexicon.entries.put(name, new Entry(pos, seeds, synonyms));
+            }
+
+            logger.info("loaded " + entryCount + " synonym sets from " + path);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("could not load synonym lexicon " + path + ": " + e.getMessage());
+            lexicon.entries.clear();
+        }
+
+        return lexicon;
+    }
+
+    public static SynonymLexicon load() {
+        return load(Paths.get(PATH));
+    }
+
+    /**
+     * Define a named set of seed words.
+     * If the lexicon doesn't contain the set (or the set was made from other seed words),
+     * it is expanded using Wordnet along with any other missing sets once the synonyms of a set are needed.
+     *
+     * @param name the name of the set
+     * @param pos the part-of-speech of the seed words
+     * @param seeds the seed words
+     */
+    public synchronized void define(String name, POS pos, String... seeds) {
+        Entry entry = entries.get(name);
+
+        if (entry == null || entry.pos != pos || !Arrays.equals(entry.seeds, seeds)) {
+            missingEntries.put(name, new Entry(pos, seeds.clone(), null));
+        } else {
+            missingEntries.remove(name);
+        }
+    }
+
+    /**
+     * The synonyms of a named set of seed words, see define.
+     *
+     * @param name the name of the set
+     * @param pos the part-of-speech of the seed words
+     * @param seeds the seed words
+     * @return the synonyms, including the seed words
+     */
+    public synchronized String[] get(String name, POS pos, String... seeds) {
+        define(name, pos, seeds);
+        return get(name);
+    }
+
+    /**
+     * The synonyms of a defined set.
+     *
+     * @param name the name of the set
+     * @return the synonyms, including the seed words
+     */
+    public synchronized String[] get(String name) {
+        if (missingEntries.containsKey(name)) expandMissing();
+
+        Entry entry = entries.get(name);
+        if (entry == null) throw new IllegalArgumentException("undefined synonym set: " + name);
+
+        return entry.synonyms.clone();
+    }
+
+    /**
+     * Expand every defined set that is missing from the lexicon using Wordnet and mark the lexicon as changed.
+     * The sets are expanded in one batch per part-of-speech, so that each seed word is only looked up once.
+     */
+    private void expandMissing() {
+        if (missingEntries.isEmpty()) return;
+
+        WordnetDictionary dictionary = Common.getDictionary();
+        if (dictionary == null) throw new IllegalStateException("Wordnet is needed to expand the synonyms of " + missingEntries.keySet() + " (" + path + " is missing or outdated)");
+
+        Map<POS, List<String>> namesByPos = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> missingEntry : missingEntries.entrySet()) {
+            namesByPos.computeIfAbsent(missingEntry.getValue().pos, pos -> new ArrayList<>()).add(missingEntry.getKey());
+        }
+
+        for (Map.Entry<POS, List<String>> names : namesByPos.entrySet()) {
+            List<String[]> seedGroups = new ArrayList<>();
+            for (String name : names.getValue()) seedGroups.add(missingEntries.get(name).seeds);
+
+            List<Set<String>> synonyms = dictionary.getSynonyms(names.getKey(), seedGroups);
+            for (int i = 0; i < seedGroups.size(); i++) {
+                String name = names.getValue().get(i);
+                entries.put(name, new Entry(names.getKey(), seedGroups.get(i), synonyms.get(i).stream().sorted().toArray(String[]::new)));
+            }
+        }
+
+        logger.warn("expanded synonym sets " + missingEntries.keySet() + " using Wordnet, run the synonymLexicon task to update " + path);
+        missingEntries.clear();
+        changed = true;
+    }
+
+    /**
+     * Whether any sets were expanded since the lexicon was loaded, i.e. whether the file is out of date.
+     *
+     * @return true if changed
+     */
+    public synchronized boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Write the lexicon to its file.
+     * The file is written to a temporary file first, so that concurrent readers never see a partial file.
+     *
+     * @throws IOException if the file couldn't be written
+     */
+    public synchronized void save() throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Path tempPath = Files.createTempFile(path.getParent() != null? path.getParent() : Paths.get("."), "synonyms", ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+
+            for (Map.Entry<String, Entry> namedEntry : entries.entrySet()) {
+                Entry entry = namedEntry.getValue();
+                out.writeUTF(namedEntry.getKey());
+                out.writeUTF(entry.pos.name());
+                writeStrings(out, entry.seeds);
+                writeStrings(out, entry.synonyms);
+            }
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        changed = false;
+        logger.info("saved " + entries.size() + " synonym sets to " + path);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+        return strings;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String string : strings) out.writeUTF(string);
+    }
+
+    /**
+     * A set of synonyms along with the seed words and part-of-speech it was expanded from.
+     */
+    private static class Entry {
+        private final POS pos;
+        private final String[] seeds;
+        private final String[] synonyms;
+
+        Entry(POS pos, String[] seeds, String[] synonyms) {
+            this.pos = pos;
+            this.seeds = seeds;
+            this.synonyms = synonyms;
+        }
+    }
+
+    /**
+     * Regenerate the lexicon file from Wordnet.
+     *
+     * @param args unused
+     * @throws IOException if the file couldn't be written
+     */
+    public static void main(String[] args) throws IOException {
+        Files.deleteIfExists(Paths.get(PATH));
+
+        // the synonym sets are defined (and expanded) by Common
+        SynonymLexicon lexicon = Common.getLexicon();
+        lexicon.save();
+        logger.info("regenerated " + lexicon.size() + " synonym sets in " + PATH);
+    }
+}
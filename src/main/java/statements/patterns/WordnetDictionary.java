@@ -2,26 +2,77 @@ package statements.patterns;
 
 import edu.mit.jwi.Dictionary;
 import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.RAMDictionary;
+import edu.mit.jwi.data.ILoadPolicy;
 import edu.mit.jwi.item.IIndexWord;
 import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
 import edu.mit.jwi.item.IWordID;
 import edu.mit.jwi.item.POS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * A dictionary class for interfacing with Wordnet using JWI.
+ *
+ * The dictionary is either read from disk as needed or loaded fully into memory.
+ * A file-backed JWI dictionary is not safe for concurrent use, so its lookups are synchronised,
+ * while an in-memory dictionary is read-only once loaded and can be used by any number of threads.
+ * In both cases the synonyms are cached, so repeated lookups don't touch the dictionary at all.
  */
 public class WordnetDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(WordnetDictionary.class);
+
+    public static final String PATH = "wordnet/dict/";
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
     IDictionary dict;
+    private final boolean inMemory;
+
+    // (POS, words) -> synonyms
+    private final Map<String, Set<String>> cache = new ConcurrentHashMap<>();
+    private final int cacheSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public WordnetDictionary() throws IOException {
-        String path = "wordnet/dict/";
+        this(PATH, false, DEFAULT_CACHE_SIZE);
+    }
+
+    public WordnetDictionary(boolean inMemory) throws IOException {
+        this(PATH, inMemory, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Open a Wordnet dictionary.
+     *
+     * @param path the directory containing the Wordnet files
+     * @param inMemory load the entire dictionary into memory rather than reading it from disk as needed
+     * @param cacheSize the maximum number of cached synonym sets (0 disables the cache)
+     * @throws IOException if the dictionary couldn't be opened
+     */
+    public WordnetDictionary(String path, boolean inMemory, int cacheSize) throws IOException {
         URL url = new URL("file", null, path);
+        this.inMemory = inMemory;
+        this.cacheSize = cacheSize;
 
-        dict = new Dictionary(url);
-        dict.open();
+        if (inMemory) {
+            long start = System.currentTimeMillis();
+            dict = new RAMDictionary(url, ILoadPolicy.IMMEDIATE_LOAD);
+            dict.open();
+            logger.info("loaded Wordnet into memory in " + (System.currentTimeMillis() - start) + " ms");
+        } else {
+            dict = new Dictionary(url);
+            dict.open();
+        }
     }
 
     /**
@@ -32,29 +83,7 @@ public class WordnetDictionary {
      * @return the synonyms, including the original word
      */
     public Set<String> getSynonyms(POS pos, String word) {
-        // the entry word is always itself part of the synonyms
-        Set<String> synonyms = new HashSet<>();
-        synonyms.add(word);
-
-        // make sure that multi-word entries are in the Wordnet format
-        word = word.replaceAll(" ", "_");
-
-        // find the relevant dictionary entry
-        IIndexWord indexWord = dict.getIndexWord(word, pos);
-
-        // find every possible synonym in the dictionary
-        if (indexWord != null) {
-            for (IWordID wordID : indexWord.getWordIDs()) {
-                IWord entry = dict.getWord(wordID);
-                synonyms.add(entry.getLemma().replaceAll("_", " "));
-
-                for (IWord iWord : entry.getSynset().getWords()) {
-                    synonyms.add(iWord.getLemma().replaceAll("_", " "));
-                }
-            }
-        }
-
-        return synonyms;
+        return getCached(pos, new String[] { word });
     }
 
     /**
@@ -68,62 +97,222 @@ public class WordnetDictionary {
      * @return the synonyms, including the original word
      */
     public Set<String> getSynonyms(POS pos, String... words) {
-        if (words.length == 1) return getSynonyms(pos, words[0]);
-        Set<IWord> entries = new HashSet<>();
-        Set<IWord> intersectingSynonyms = new HashSet<>();
-        List<List<IWord>> entrySynonymResults = new ArrayList<>();
+        return getCached(pos, words);
+    }
 
-        Set<String> synonyms = new HashSet<>();
+    /**
+     * Look up synonyms in the cache, finding them in the dictionary if they are not cached.
+     *
+     * @param pos the part-of-speech tag of the words
+     * @param words the words to find synonyms for
+     * @return the synonyms (a copy which may be modified)
+     */
+    private Set<String> getCached(POS pos, String[] words) {
+        if (cacheSize <= 0) return find(pos, words);
 
-        // find the relevant synonyms for each word
-        for (String word : words) {
-            // the entry word is always itself part of the synonyms
-            synonyms.add(word);
+        String key = getKey(pos, words);
+        Set<String> synonyms = cache.get(key);
 
+        if (synonyms != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            synonyms = cache(key, find(pos, words));
+        }
 
-            // make sure that multi-word entries are in the Wordnet format
-            word = word.replaceAll(" ", "_");
+        return new HashSet<>(synonyms);
+    }
 
-            // find the dictionary entry for the word
-            IIndexWord indexWord = dict.getIndexWord(word, pos);
-            if (indexWord != null) {
-                List<IWordID> dictionaryResult = indexWord.getWordIDs();
+    private static String getKey(POS pos, String[] words) {
+        return pos.getTag() + ":" + String.join("|", words);
+    }
 
-                // find synonyms from dictionary entry
-                if (dictionaryResult != null) {
-                    List<IWord> entrySynonyms = new ArrayList<>();
+    /**
+     * Add synonyms to the cache.
+     *
+     * @param key the key of the words
+     * @param synonyms the synonyms of the words
+     * @return the cached synonyms
+     */
+    private Set<String> cache(String key, Set<String> synonyms) {
+        Set<String> cachedSynonyms = Collections.unmodifiableSet(synonyms);
 
-                    for (IWordID wordID : dictionaryResult) {
-                        IWord entry = dict.getWord(wordID);
-                        entrySynonyms.addAll(entry.getSynset().getWords());
-                    }
+        // rather than tracking usage, a part of the cache is evicted whenever it is full
+        if (cache.size() >= cacheSize) evict();
+        cache.put(key, cachedSynonyms);
 
-                    entries.addAll(entrySynonyms);
-                    entrySynonymResults.add(entrySynonyms);
-                }
+        return cachedSynonyms;
+    }
+
+    /**
+     * Evict about a quarter of the cached synonym sets.
+     */
+    private void evict() {
+        Iterator<String> keys = cache.keySet().iterator();
+        int evictions = Math.max(1, cacheSize / 4);
+
+        while (keys.hasNext() && evictions-- > 0) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Find synonyms in the dictionary.
+     *
+     * @param pos the part-of-speech tag of the words
+     * @param words the words to find synonyms for
+     * @return the synonyms
+     */
+    private Set<String> find(POS pos, String[] words) {
+        Map<String, Map<ISynsetID, List<String>>> senses = new HashMap<>();
+        for (String word : words) senses.put(word, getSenses(pos, word));
+        return expand(words, senses);
+    }
+
+    /**
+     * Expand many groups of seed words into synonyms at once.
+     * Groups are looked up in the cache first, like in getSynonyms(pos, group). Of the remaining groups,
+     * every distinct word is only looked up once, no matter how many groups it is part of,
+     * and both the lookups and the expansions are done in parallel.
+     * The synonyms of each group are the same as those returned by getSynonyms(pos, group).
+     *
+     * @param pos the part-of-speech tag of the words
+     * @param seedGroups the groups of seed words
+     * @return the synonyms of each group, in the same order as the groups
+     */
+    public List<Set<String>> getSynonyms(POS pos, List<String[]> seedGroups) {
+        List<Set<String>> synonyms = new ArrayList<>(Collections.nCopies(seedGroups.size(), null));
+        List<Integer> missingGroups = new ArrayList<>();
+        Set<String> words = new HashSet<>();
+
+        for (int i = 0; i < seedGroups.size(); i++) {
+            Set<String> cachedSynonyms = cacheSize > 0? cache.get(getKey(pos, seedGroups.get(i))) : null;
+
+            if (cachedSynonyms != null) {
+                hits.increment();
+                synonyms.set(i, new HashSet<>(cachedSynonyms));
+            } else {
+                if (cacheSize > 0) misses.increment();
+                missingGroups.add(i);
+                Collections.addAll(words, seedGroups.get(i));
             }
         }
 
-        // only preserve synonyms that intersect at least one other entry's synonyms
-        for (IWord entry : entries) {
-            int existenceCount = 0;
-
-            for (List<IWord> dictionaryResult : entrySynonymResults) {
-                if (dictionaryResult.contains(entry)) {
-                    existenceCount++;
-                    if (existenceCount > 1) {
-                        intersectingSynonyms.add(entry);
-                        break;
-                    }
+        // lookups in a file-backed dictionary are synchronised, so they only run in parallel when in memory
+        Map<String, Map<ISynsetID, List<String>>> senses = new ConcurrentHashMap<>();
+        (inMemory? words.parallelStream() : words.stream()).forEach(word -> senses.put(word, getSenses(pos, word)));
+
+        List<Set<String>> expansions = missingGroups.parallelStream()
+                .map(i -> expand(seedGroups.get(i), senses))
+                .collect(Collectors.toList());
+
+        for (int j = 0; j < missingGroups.size(); j++) {
+            int i = missingGroups.get(j);
+            Set<String> expansion = expansions.get(j);
+            if (cacheSize > 0) expansion = new HashSet<>(cache(getKey(pos, seedGroups.get(i)), expansion));
+            synonyms.set(i, expansion);
+        }
+
+        return synonyms;
+    }
+
+    /**
+     * The senses of a word, i.e. the synsets it is part of along with the lemmas of each synset.
+     * Lookups in a file-backed dictionary are synchronised, since it is not safe for concurrent use.
+     *
+     * @param pos the part-of-speech tag of the word
+     * @param word the word
+     * @return the lemmas of each synset of the word
+     */
+    private Map<ISynsetID, List<String>> getSenses(POS pos, String word) {
+        if (inMemory) return findSenses(pos, word);
+
+        synchronized (this) {
+            return findSenses(pos, word);
+        }
+    }
+
+    private Map<ISynsetID, List<String>> findSenses(POS pos, String word) {
+        Map<ISynsetID, List<String>> senses = new LinkedHashMap<>();
+
+        // make sure that multi-word entries are in the Wordnet format
+        IIndexWord indexWord = dict.getIndexWord(word.replaceAll(" ", "_"), pos);
+
+        if (indexWord != null && indexWord.getWordIDs() != null) {
+            for (IWordID wordID : indexWord.getWordIDs()) {
+                ISynset synset = dict.getWord(wordID).getSynset();
+                List<String> lemmas = new ArrayList<>();
+
+                for (IWord iWord : synset.getWords()) {
+                    lemmas.add(iWord.getLemma().replaceAll("_", " "));
                 }
+
+                senses.put(synset.getID(), lemmas);
             }
         }
 
-        // retrieve the lemmas from the remaining entries
-        for (IWord intersectingSynonym : intersectingSynonyms) {
-            synonyms.add(intersectingSynonym.getLemma().replaceAll("_", " "));
+        return senses;
+    }
+
+    /**
+     * Expand a group of words into synonyms using the senses of each word.
+     * A single word is expanded into every synonym of every sense, while several words are only expanded into
+     * the synonyms of senses shared by at least two of the words, i.e. the synsets are counted across the words.
+     *
+     * @param words the words
+     * @param senses the senses of each word
+     * @return the synonyms, including the original words
+     */
+    private static Set<String> expand(String[] words, Map<String, Map<ISynsetID, List<String>>> senses) {
+        // the entry words are always themselves part of the synonyms
+        Set<String> synonyms = new HashSet<>();
+        Collections.addAll(synonyms, words);
+
+        if (words.length == 1) {
+            for (List<String> lemmas : senses.get(words[0]).values()) synonyms.addAll(lemmas);
+            return synonyms;
+        }
+
+        Map<ISynsetID, Integer> counts = new HashMap<>();
+        for (String word : words) {
+            for (ISynsetID synsetID : senses.get(word).keySet()) counts.merge(synsetID, 1, Integer::sum);
+        }
+
+        // only preserve synonyms that intersect at least one other entry's synonyms
+        for (String word : words) {
+            for (Map.Entry<ISynsetID, List<String>> sense : senses.get(word).entrySet()) {
+                if (counts.get(sense.getKey()) > 1) synonyms.addAll(sense.getValue());
+            }
         }
 
         return synonyms;
     }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * The share of lookups that were answered by the cache.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double getCacheHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0? hitCount / (double) total : 0;
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public boolean isInMemory() {
+        return inMemory;
+    }
 }
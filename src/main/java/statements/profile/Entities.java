@@ -0,0 +1,159 @@
+package statements.profile;
+
+import statements.core.IntCountMap;
+import statements.core.LongCountMap;
+import statements.core.Vocabulary;
+
+import statements.core.IntHashSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Helpers for the entity and activity counts shared by Profile and ProfileSnapshot.
+ * Entities are counted by their id in the Vocabulary, activities by the ids of their verb and object packed into a long.
+ */
+final class Entities {
+    // the versions of profiles and snapshots, see EntityProfile.getVersion
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private Entities() {
+    }
+
+    static long nextVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Reserve a block of versions.
+     *
+     * @param count the number of versions
+     * @return the first version of the block
+     */
+    static long nextVersions(int count) {
+        return VERSIONS.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Find entities that have something in common between two profiles.
+     * Entities are identified by their common relationship to the author.
+     *
+     * @param profile the profile
+     * @param otherProfile the other profile to search in
+     * @return the commonalities
+     */
+    static Set<String> getCommonEntities(EntityProfile profile, EntityProfile otherProfile) {
+        Set<String> commonEntities = new HashSet<>();
+
+        for (EntityType type : EntityType.values()) {
+            IntCountMap typeEntities = profile.getEntityMap(type);
+            for (int entityId : otherProfile.getEntityMap(type).keys()) {
+                if (typeEntities.contains(entityId)) commonEntities.add(Vocabulary.getWord(entityId));
+            }
+        }
+
+        return commonEntities;
+    }
+
+    /**
+     * Find activities in common between two profiles.
+     *
+     * @param profile the profile
+     * @param otherProfile the other profile to search in
+     * @return the common activities
+     */
+    static Map<String, Set<String>> getCommonActivities(EntityProfile profile, EntityProfile otherProfile) {
+        Map<String, Set<String>> commonActivities = new HashMap<>();
+        LongCountMap activities = profile.getActivityMap();
+
+        IntHashSet activityVerbIds = new IntHashSet();
+        for (long activityKey : activities.keys()) activityVerbIds.add(getActivityVerbId(activityKey));
+
+        // a verb in common is included even if none of its objects are
+        for (long activityKey : otherProfile.getActivityMap().keys()) {
+            if (activityVerbIds.contains(getActivityVerbId(activityKey))) {
+                String activityVerb = Vocabulary.getWord(getActivityVerbId(activityKey));
+                Set<String> commonObjects = commonActivities.computeIfAbsent(activityVerb, verb -> new HashSet<>());
+                if (activities.contains(activityKey)) commonObjects.add(Vocabulary.getWord(getActivityObjectId(activityKey)));
+            }
+        }
+
+        return commonActivities;
+    }
+
+    /**
+     * The key of an activity, i.e. the ids of its verb and object packed into a single long.
+     *
+     * @param verbId the id of the verb
+     * @param objectId the id of the object
+     * @return key
+     */
+    static long getActivityKey(int verbId, int objectId) {
+        return ((long) verbId << 32) | objectId;
+    }
+
+    static int getActivityVerbId(long activityKey) {
+        return (int) (activityKey >>> 32);
+    }
+
+    static int getActivityObjectId(long activityKey) {
+        return (int) activityKey;
+    }
+
+    static IntCountMap[] newEntityMaps() {
+        IntCountMap[] entityMaps = new IntCountMap[EntityType.values().length];
+        for (int i = 0; i < entityMaps.length; i++) entityMaps[i] = new IntCountMap();
+        return entityMaps;
+    }
+
+    /**
+     * The words of a map of word ids.
+     *
+     * @param wordIds counts by word id
+     * @return words
+     */
+    static Set<String> toWordSet(IntCountMap wordIds) {
+        Set<String> words = new HashSet<>();
+        for (int wordId : wordIds.keys()) words.add(Vocabulary.getWord(wordId));
+        return words;
+    }
+
+    /**
+     * The words of a map of word ids along with their counts.
+     *
+     * @param wordIds counts by word id
+     * @return counts by word
+     */
+    static Map<String, Integer> toWordCounts(IntCountMap wordIds) {
+        Map<String, Integer> wordCounts = new HashMap<>();
+        for (int wordId : wordIds.keys()) wordCounts.put(Vocabulary.getWord(wordId), wordIds.get(wordId));
+        return wordCounts;
+    }
+
+    /**
+     * The activities of a map of activity keys.
+     *
+     * @param activityKeys counts by activity key
+     * @return activity objects by activity verb
+     */
+    static Map<String, Set<String>> toActivityMap(LongCountMap activityKeys) {
+        Map<String, Set<String>> activityMap = new HashMap<>();
+
+        for (long activityKey : activityKeys.keys()) {
+            String activityVerb = Vocabulary.getWord(getActivityVerbId(activityKey));
+            String activityObject = Vocabulary.getWord(getActivityObjectId(activityKey));
+            activityMap.computeIfAbsent(activityVerb, verb -> new HashSet<>()).add(activityObject);
+        }
+
+        return activityMap;
+    }
+
+    static int getActivityCount(LongCountMap activityKeys, String activityVerb, String activityObject) {
+        int verbId = Vocabulary.findId(activityVerb);
+        int objectId = Vocabulary.findId(activityObject);
+        return verbId != -1 && objectId != -1? activityKeys.get(getActivityKey(verbId, objectId)) : 0;
+    }
+}
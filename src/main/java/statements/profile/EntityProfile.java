@@ -0,0 +1,36 @@
+package statements.profile;
+
+import statements.core.IntCountMap;
+import statements.core.LongCountMap;
+
+/**
+ * The entities and activities of an author, i.e. the parts of a profile that profiles are compared by.
+ * Implemented by both Profile and ProfileSnapshot, so that a restored snapshot can be compared to a profile
+ * (or another snapshot), e.g. when finding common entities or ranking statements by relevance.
+ *
+ * Note: the returned maps are the counts held by the profile and must not be modified.
+ */
+public interface EntityProfile {
+    /**
+     * The entities of a specific type, counted by their id in the Vocabulary.
+     *
+     * @param type the relationship of the entities to the author
+     * @return counts by entity id
+     */
+    IntCountMap getEntityMap(EntityType type);
+
+    /**
+     * The activities, counted by the ids of their verb and object (see Entities.getActivityKey).
+     *
+     * @return counts by activity key
+     */
+    LongCountMap getActivityMap();
+
+    /**
+     * The version of the entities and activities, which changes whenever they change.
+     * Versions are unique across all profiles and snapshots, so a version identifies both a profile and its current state.
+     *
+     * @return version
+     */
+    long getVersion();
+}
@@ -0,0 +1,17 @@
+package statements.profile;
+
+/**
+ * The kinds of entities that are registered in a Profile, i.e. the relationship of an entity to the author.
+ */
+public enum EntityType {
+    LOCATION,
+    POSSESSION,
+    STUDY,
+    WORK,
+    IDENTITY,
+    PROPER_NOUN,
+    LIKE,
+    DISLIKE,
+    WANT,
+    FEELING
+}
@@ -8,28 +8,44 @@ import statements.patterns.*;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-public class Profile {
+public class Profile implements EntityProfile {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private Set<Statement> statements;
+    private Set<Statement> statements = new HashSet<>();
     private Set<Statement> interestingStatements = new HashSet<>();
 
-    // entities found in statements using pattern matching
-    private Set<String> locations = new HashSet<>();
-    private Set<String> possessions = new HashSet<>();
-    private Set<String> studies = new HashSet<>();
-    private Set<String> work = new HashSet<>();
-    private Set<String> identities = new HashSet<>();
-    private Set<String> properNouns = new HashSet<>();
-    private Set<String> likes = new HashSet<>();
-    private Set<String> dislikes = new HashSet<>();
-    private Set<String> wants = new HashSet<>();
-    private Set<String> feelings = new HashSet<>();
-    private Map<String, Set<String>> activities = new HashMap<>();
-
-    private Map<Statement, Integer> qualityPointsMap = new HashMap<>();
-    private Map<Statement, Double> qualityMap = new HashMap<>();
+    // entities found in statements using pattern matching, counted by their id in the Vocabulary
+    private final IntCountMap[] entities = Entities.newEntityMaps();
+
+    // activities found in statements, counted by the ids of their verb and object (see getActivityKey)
+    private final LongCountMap activities = new LongCountMap();
+
+    // every statement that is scored gets a dense ordinal, which is its index in the score arrays
+    private final Map<Statement, Integer> ordinals = new IdentityHashMap<>();
+    private final List<Statement> ordinalStatements = new ArrayList<>();
+    private int[] qualityPoints = new int[16];
+    private double[] quality = new double[16];  // NaN until calculated
+    private double[] lexicalDensity = new double[16];  // NaN until calculated
+
+    // an index of the interesting statements used for scoring relevance, built when first needed
+    private RelevanceIndex relevanceIndex;
+
+    // the interesting statements ranked by lexical density and quality, kept up to date as statements are added
+    private List<Statement> lexicalDensityRanking;
+    private List<Statement> qualityRanking;
+
+    // changes whenever statements are added, unique across all profiles (see getVersion)
+    private volatile long version = Entities.nextVersion();
+
+    // statistics of the build
+    private int citationCount;
+    private int unpackedCount;
+
+    // the number of statements that each partial profile is built from in a parallel build
+    private static final int PARTITION_SIZE = 256;
 
     private static DecimalFormat df = new DecimalFormat("#.##");
 
@@ -72,75 +88,75 @@ public class Profile {
      * Matches statements that are deemed interesting (or uninteresting for the anti-patterns).
      * Used to limit statements for further processing based on a couple of heuristics.
      */
-    private final StatementPattern EMBEDDED_INTERESTING_PATTERN = new StatementPattern(
+    private static final StatementPattern EMBEDDED_INTERESTING_PATTERN = new StatementPattern(
             new VerbPattern().negated(null),
             new NonVerbPattern().person(Person.first, Person.third).local(false).notWords(UNINTERESTING_NOUNS).all()
     ).optional().minSize(2);
 
-    public final StatementPattern INTERESTING_PATTERN = new StatementPattern(
+    public static final StatementPattern INTERESTING_PATTERN = new StatementPattern(
             new SubjectPattern(),
             new VerbPattern().negated(null),
             new NonVerbPattern().person(Person.first, Person.third).local(false).notWords(UNINTERESTING_NOUNS).all(),
             EMBEDDED_INTERESTING_PATTERN  // for embedded statements
     ).question(false).minSize(3);
 
-    private final StatementPattern INTERESTING_ANTIPATTERN_1 = new StatementPattern(
+    private static final StatementPattern INTERESTING_ANTIPATTERN_1 = new StatementPattern(
             new VerbPattern().copula().negated(null)
     ).size(2);
 
     /**
      * Matches statements that came from a question.
      */
-    private final StatementPattern CITATION_ANTIPATTERN = new StatementPattern().citation();
+    private static final StatementPattern CITATION_ANTIPATTERN = new StatementPattern().citation();
 
     /**
      * Matches anything that is personal in nature, i.e. referring to first person or first person possessions.
      */
-    private final MultiPattern PERSONAL_PATTERN = new MultiPattern(
+    private static final MultiPattern PERSONAL_PATTERN = new MultiPattern(
             new NonVerbPattern().firstPerson(),
             new NonVerbPattern().noun().firstPersonPossessive()
     );
 
     // inspired by paper
-    private final StatementPattern ADVERB_ADJECTIVE_PATTERN = new StatementPattern(
+    private static final StatementPattern ADVERB_ADJECTIVE_PATTERN = new StatementPattern(
             new NonVerbPattern().compoundTags(Tag.adverb, Tag.adjective)
     );
 
     /**
      * Captures likes/loves (and wants in the second case).
      */
-    private final StatementPattern EMBEDDED_ACTIVITY_PATTERN = new StatementPattern(
+    private static final StatementPattern EMBEDDED_ACTIVITY_PATTERN = new StatementPattern(
             new VerbPattern(),
             new DirectObjectPattern(),
             new NonVerbPattern().person(Person.first, Person.third).local(false).notWords(UNINTERESTING_NOUNS).all()
     ).capture().optional();
 
-    private final StatementPattern LIKE_PATTERN_1 = new StatementPattern(
+    private static final StatementPattern LIKE_PATTERN_1 = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.LIKE_VERB),
             new DirectObjectPattern().notWords(UNINTERESTING_NOUNS).capture().optional(),
             EMBEDDED_ACTIVITY_PATTERN
     );
 
-    private final StatementPattern LIKE_PATTERN_2 = new StatementPattern(
+    private static final StatementPattern LIKE_PATTERN_2 = new StatementPattern(
             new SubjectPattern().thirdPerson().notWords(UNINTERESTING_NOUNS).capture(),
             new VerbPattern().copula(),
             new DirectObjectPattern().adjective().words(Common.POSITIVE_ADJECTIVE)
     );
 
-    private final StatementPattern DISLIKE_PATTERN_1 = new StatementPattern(
+    private static final StatementPattern DISLIKE_PATTERN_1 = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.DISLIKE_VERB),
             new DirectObjectPattern().notWords(UNINTERESTING_NOUNS).capture()
     );
 
-    private final StatementPattern DISLIKE_PATTERN_2 = new StatementPattern(
+    private static final StatementPattern DISLIKE_PATTERN_2 = new StatementPattern(
             new SubjectPattern().thirdPerson().notWords(UNINTERESTING_NOUNS).capture(),
             new VerbPattern().copula(),
             new DirectObjectPattern().adjective().words(Common.NEGATIVE_ADJECTIVE)
     );
 
-    private final StatementPattern WANT_PATTERN = new StatementPattern(
+    private static final StatementPattern WANT_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.WANT_VERB),
             new DirectObjectPattern().notWords(UNINTERESTING_NOUNS).capture().optional(),
@@ -150,7 +166,7 @@ public class Profile {
     /**
      * Captures feelings.
      */
-    private final StatementPattern FEEL_PATTERN = new StatementPattern(
+    private static final StatementPattern FEEL_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words("feel"),
             new DirectObjectPattern().capture()
@@ -159,38 +175,38 @@ public class Profile {
     /**
      * Captures proper nouns.
      */
-    private final StatementPattern PROPER_NOUN_PATTERN = new StatementPattern(
+    private static final StatementPattern PROPER_NOUN_PATTERN = new StatementPattern(
             new NonVerbPattern().properNoun().notWords(UNINTERESTING_NOUNS).capture()
     );
 
     /**
      * Captures objects that indicate the occupation of the author
      */
-    private final StatementPattern STUDY_PATTERN = new StatementPattern(
+    private static final StatementPattern STUDY_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words("study"),
             new ObjectPattern().capture().optional().notWords(UNINTERESTING_NOUNS)
     );
 
-    private final StatementPattern WORK_PATTERN = new StatementPattern(
+    private static final StatementPattern WORK_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words("work"),
             new IndirectObjectPattern().capture().optional().notWords(UNINTERESTING_NOUNS)
     );
 
-    private final StatementPattern IDENTITY_PATTERN_1 = new StatementPattern(
+    private static final StatementPattern IDENTITY_PATTERN_1 = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().copula(),
             new DirectObjectPattern().partsOfSpeech(Tag.noun, Tag.properNoun).capture().optional().notWords(UNINTERESTING_NOUNS)
     );
 
-    private final StatementPattern IDENTITY_PATTERN_2 = new StatementPattern(
+    private static final StatementPattern IDENTITY_PATTERN_2 = new StatementPattern(
             new StatementPattern(
                     new IndirectObjectPattern().preposition("as").capture()
             )
     );
 
-    private final StatementPattern ACTIVITY_PATTERN = new StatementPattern(
+    private static final StatementPattern ACTIVITY_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().copula(false).notWords(Common.POSSESS_VERB).capture(),
             new DirectObjectPattern().negated(false).specific(false).description(false).partsOfSpeech(Tag.noun, Tag.properNoun).notWords(UNINTERESTING_NOUNS).capture()
@@ -199,7 +215,7 @@ public class Profile {
     /**
      * Captures objects that indicate the location of the author.
      */
-    private final StatementPattern LOCATION_PATTERN = new StatementPattern(
+    private static final StatementPattern LOCATION_PATTERN = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.LOCATION_VERB),
             new ObjectPattern().preposition(Common.LOCATION_PREPOSITION).partsOfSpeech(Tag.noun, Tag.properNoun).capture()
@@ -208,11 +224,11 @@ public class Profile {
     /**
      * Captures objects that indicate the possessions of the author.
      */
-    private final StatementPattern POSSESSION_PATTERN_1 = new StatementPattern(
+    private static final StatementPattern POSSESSION_PATTERN_1 = new StatementPattern(
             new NonVerbPattern().noun().firstPersonPossessive().capture()
     );
 
-    private final StatementPattern POSSESSION_PATTERN_2 = new StatementPattern(
+    private static final StatementPattern POSSESSION_PATTERN_2 = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.POSSESS_VERB),
             new DirectObjectPattern().noun().capture().notWords(UNINTERESTING_NOUNS)
@@ -221,424 +237,691 @@ public class Profile {
     /**
      * Matches statements that indicate the opinion of the author.
      */
-    private final StatementPattern OPINION_PATTERN_1 = new StatementPattern(
+    private static final StatementPattern OPINION_PATTERN_1 = new StatementPattern(
             new SubjectPattern().firstPerson(),
             new VerbPattern().words(Common.OPINION_VERB),
             new StatementPattern().capture()
     );
 
     // Note: use the non-captures!
-    private final StatementPattern OPINION_PATTERN_2 = new StatementPattern(
+    private static final StatementPattern OPINION_PATTERN_2 = new StatementPattern(
             new ObjectPattern().firstPersonPossessive().words(Common.OPINION_NOUN).preposition().capture()
     );
 
+    /**
+     * Every pattern used to find entities in statements.
+     * A sentence that cannot match any of these patterns will not add entities to a profile
+     * (although it may still add interesting statements).
+     * The patterns are shared by every profile and sentence filter, so the set can't be modified.
+     */
+    public static final Set<StatementPattern> ENTITY_PATTERNS;
+    static {
+        Set<StatementPattern> patterns = new HashSet<>();
+        patterns.add(LIKE_PATTERN_1);
+        patterns.add(LIKE_PATTERN_2);
+        patterns.add(DISLIKE_PATTERN_1);
+        patterns.add(DISLIKE_PATTERN_2);
+        patterns.add(WANT_PATTERN);
+        patterns.add(FEEL_PATTERN);
+        patterns.add(PROPER_NOUN_PATTERN);
+        patterns.add(STUDY_PATTERN);
+        patterns.add(WORK_PATTERN);
+        patterns.add(IDENTITY_PATTERN_1);
+        patterns.add(IDENTITY_PATTERN_2);
+        patterns.add(ACTIVITY_PATTERN);
+        patterns.add(LOCATION_PATTERN);
+        patterns.add(POSSESSION_PATTERN_1);
+        patterns.add(POSSESSION_PATTERN_2);
+        ENTITY_PATTERNS = Collections.unmodifiableSet(patterns);
+    }
+
+    /**
+     * Every pattern evaluated while building a profile, indexed so that only candidate patterns are evaluated.
+     */
+    private static final PatternSet PATTERNS;
+    static {
+        Set<StatementPattern> patterns = new HashSet<>(ENTITY_PATTERNS);
+        patterns.add(OPINION_PATTERN_1);
+        patterns.add(OPINION_PATTERN_2);
+        patterns.add(ADVERB_ADJECTIVE_PATTERN);
+        PATTERNS = new PatternSet(patterns);
+    }
+
     public Profile(Set<Statement> statements) throws IOException {
-        this.statements = statements;
+        this(statements, false);
+    }
+
+    /**
+     * Build a profile from a set of statements.
+     * In parallel mode the statements are partitioned over the common fork-join pool. Each partition is built
+     * into its own partial profile and the partial profiles are merged at the end, giving the same result
+     * as building the profile sequentially.
+     *
+     * @param statements the statements of the author (the set is not modified)
+     * @param parallel whether to build the profile in parallel
+     * @throws IOException if the patterns couldn't be loaded
+     */
+    public Profile(Set<Statement> statements, boolean parallel) throws IOException {
+        if (parallel && statements.size() > PARTITION_SIZE) {
+            List<Statement> statementList = new ArrayList<>(statements);
+            absorb(ForkJoinPool.commonPool().invoke(new PartialProfileTask(statementList, 0, statementList.size())));
+        } else {
+            // every pattern family is evaluated in a single pass over the statements
+            for (Statement statement : statements) add(statement);
+        }
+
+        logTotals();
+    }
+
+    /**
+     * Create an empty profile, used for the partial profiles of a parallel build and for merging profiles.
+     */
+    private Profile() {
+    }
+
+    /**
+     * Merge partial profiles into a single profile, e.g. profiles built by different workers.
+     * If the partial profiles were built from disjoint sets of statements, the result is the same
+     * as building a single profile from all of the statements. The partial profiles are not modified.
+     *
+     * @param partialProfiles the profiles to merge
+     * @return the merged profile
+     */
+    public static Profile merge(Collection<Profile> partialProfiles) {
+        Profile profile = new Profile();
+        for (Profile partialProfile : partialProfiles) profile.absorb(partialProfile);
+        profile.logTotals();
+        return profile;
+    }
+
+    public static Profile merge(Profile... partialProfiles) {
+        return merge(Arrays.asList(partialProfiles));
+    }
+
+    private void logTotals() {
+        logger.info("removed citations: " + citationCount);
+        logger.info("total statements unpacked: " + unpackedCount);
+        for (EntityType type : EntityType.values()) {
+            logger.info("total " + type.name().toLowerCase() + " entities found: " + entities[type.ordinal()].size());
+        }
+        logger.info("total activities found: " + activities.size());
+    }
 
+    /**
+     * Add a statement to this profile.
+     * Citations are skipped and statements embedded according to a pattern are added in place of the statement.
+     *
+     * @param statement the statement to add
+     * @return the statements that were added to the profile
+     */
+    private List<Statement> add(Statement statement) {
         // citations do not represent the user's own opinions
-        int statementCount = statements.size();
-        statements.removeIf(CITATION_ANTIPATTERN::matches);
-        logger.info("removed citations: " + (statementCount - statements.size()));
+        if (CITATION_ANTIPATTERN.matches(statement)) {
+            citationCount++;
+            return Collections.emptyList();
+        }
+
+        // the candidate patterns are only found once per statement
+        Set<StatementPattern> candidates = PATTERNS.candidates(statement);
 
         // unpack embedded statements according to a pattern
-        // the original statements are replaced with the embedded statements based on the pattern
-        unpackEmbeddedStatements();
+        // the original statement is replaced with the embedded statements based on the pattern
+        List<Statement> embeddedStatements = unpack(statement, candidates);
+
+        if (embeddedStatements == null) {
+            register(statement, candidates);
+            return Collections.singletonList(statement);
+        } else {
+            unpackedCount++;
+            for (Statement embeddedStatement : embeddedStatements) {
+                register(embeddedStatement, PATTERNS.candidates(embeddedStatement));
+            }
+            return embeddedStatements;
+        }
+    }
+
+    /**
+     * Add new statements to this profile, e.g. the statements of a new comment by the author.
+     * Only the new statements are matched, so the profile doesn't need to be rebuilt from the entire history.
+     * The rankings of the interesting statements are updated by merging in the new interesting statements.
+     *
+     * Note: a RelevanceComparator only reflects the profiles at the time it was created.
+     *
+     * @param newStatements the statements to add (not modified)
+     * @return the statements that were added to the profile, i.e. without citations and with embedded statements unpacked
+     */
+    public List<Statement> addStatements(Collection<Statement> newStatements) {
+        List<Statement> addedStatements = new ArrayList<>();
+        for (Statement statement : newStatements) addedStatements.addAll(add(statement));
+
+        List<Statement> newInterestingStatements = new ArrayList<>();
+        for (Statement statement : addedStatements) {
+            if (interestingStatements.contains(statement)) newInterestingStatements.add(statement);
+        }
+
+        if (lexicalDensityRanking != null) {
+            lexicalDensityRanking = Rankings.merge(lexicalDensityRanking, newInterestingStatements, this::getLexicalDensity);
+        }
+        if (qualityRanking != null) {
+            qualityRanking = Rankings.merge(qualityRanking, newInterestingStatements, this::getStatementQuality);
+        }
+        if (relevanceIndex != null) {
+            for (Statement statement : newInterestingStatements) relevanceIndex.add(getOrdinal(statement), statement);
+        }
+
+        version = Entities.nextVersion();
+        logger.info("added " + addedStatements.size() + " statements (" + newInterestingStatements.size() + " interesting) to profile");
+
+        return addedStatements;
+    }
+
+    /**
+     * Merge the statements, entities and quality points of another profile into this profile.
+     * The counts of the entities and activities are summed.
+     *
+     * @param other the profile to merge into this one
+     */
+    private void absorb(Profile other) {
+        statements.addAll(other.statements);
+        interestingStatements.addAll(other.interestingStatements);
+        for (EntityType type : EntityType.values()) entities[type.ordinal()].addAll(other.entities[type.ordinal()]);
+        activities.addAll(other.activities);
+
+        for (int otherOrdinal = 0; otherOrdinal < other.ordinalStatements.size(); otherOrdinal++) {
+            int ordinal = getOrdinal(other.ordinalStatements.get(otherOrdinal));
+            qualityPoints[ordinal] += other.qualityPoints[otherOrdinal];
+            quality[ordinal] = Double.NaN;
+            lexicalDensity[ordinal] = other.lexicalDensity[otherOrdinal];
+        }
+
+        citationCount += other.citationCount;
+        unpackedCount += other.unpackedCount;
+
+        // the rankings and the index are rebuilt from the merged interesting statements when needed
+        lexicalDensityRanking = null;
+        qualityRanking = null;
+        relevanceIndex = null;
+    }
+
+    /**
+     * Builds a partial profile from a range of statements, splitting the range until it is small enough.
+     * The patterns don't keep any state between matches, so the partial profiles can be built concurrently.
+     */
+    private static class PartialProfileTask extends RecursiveTask<Profile> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Statement> statements;
+        private final int from;
+        private final int to;
+
+        PartialProfileTask(List<Statement> statements, int from, int to) {
+            this.statements = statements;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Profile compute() {
+            if (to - from <= PARTITION_SIZE) {
+                Profile profile = new Profile();
+                for (int i = from; i < to; i++) profile.add(statements.get(i));
+                return profile;
+            }
+
+            int middle = (from + to) >>> 1;
+            PartialProfileTask left = new PartialProfileTask(statements, from, middle);
+            left.fork();
+            Profile profile = new PartialProfileTask(statements, middle, to).compute();
+            profile.absorb(left.join());
+            return profile;
+        }
+    }
+
+    /**
+     * Add a statement to this profile, assessing its quality and registering the entities found in it.
+     *
+     * @param statement the statement to add
+     * @param candidates the candidate patterns of the statement
+     */
+    private void register(Statement statement, Set<StatementPattern> candidates) {
+        statements.add(statement);
 
         // various quality adjustments that do not capture entities
-        for (Statement statement : getInterestingStatements()) {
+        if (INTERESTING_PATTERN.matches(statement) && !INTERESTING_ANTIPATTERN_1.matches(statement)) {
+            interestingStatements.add(statement);
+
             if (PERSONAL_PATTERN.matches(statement)) {
                 addQualityPoint(statement);
             }
-            if (ADVERB_ADJECTIVE_PATTERN.matches(statement)) {
+            if (match(ADVERB_ADJECTIVE_PATTERN, statement, candidates).matches()) {
                 addQualityPoint(statement);
             }
         }
 
         // find locations that the author has been to
-        registerLocations();
+        registerLocations(statement, candidates);
 
         // find possessions of the author
-        registerPossessions();
+        registerPossessions(statement, candidates);
 
         // find occupations of the author
-        registerOccupations();
+        registerOccupations(statement, candidates);
 
         // find pronouns mentioned by the author
-        registerProperNouns();
+        registerProperNouns(statement, candidates);
 
         // find emotional content by the author
-        registerEmotionalContent();
+        registerEmotionalContent(statement, candidates);
     }
 
     /**
      * Find entities that have something in common between this profile and another one.
      * Entities are identified by their common relationship to the author.
      *
-     * @param otherProfile the other profile to search in
+     * @param otherProfile the other profile (or restored snapshot) to search in
      * @return the commonalities
      */
-    public Set<String> getCommonEntities(Profile otherProfile) {
-        Set<String> commonLocations = new HashSet<>(otherProfile.getLocations());
-        commonLocations.retainAll(getLocations());
-
-        Set<String> commonPossessions = new HashSet<>(otherProfile.getPossessions());
-        commonPossessions.retainAll(getPossessions());
-
-        Set<String> commonStudies = new HashSet<>(otherProfile.getStudies());
-        commonStudies.retainAll(getStudies());
-
-        Set<String> commonWork = new HashSet<>(otherProfile.getWork());
-        commonWork.retainAll(getWork());
-
-        Set<String> commonIdentities = new HashSet<>(otherProfile.getIdentities());
-        commonIdentities.retainAll(getIdentities());
+    public Set<String> getCommonEntities(EntityProfile otherProfile) {
+        return Entities.getCommonEntities(this, otherProfile);
+    }
 
-        Set<String> commonProperNouns = new HashSet<>(otherProfile.getProperNouns());
-        commonProperNouns.retainAll(getProperNouns());
+    /**
+     * Find activities in common between this prifle and another one.
+     *
+     * @param otherProfile the other profile (or restored snapshot) to search in
+     * @return the common activities
+     */
+    public Map<String, Set<String>> getCommonActivities(EntityProfile otherProfile) {
+        return Entities.getCommonActivities(this, otherProfile);
+    }
 
-        Set<String> commonLikes = new HashSet<>(otherProfile.getLikes());
-        commonLikes.retainAll(getLikes());
+    /**
+     * Count an entity of the author.
+     *
+     * @param type the relationship of the entity to the author
+     * @param component the component representing the entity
+     */
+    private void addEntity(EntityType type, AbstractComponent component) {
+        entities[type.ordinal()].increment(component.getNormalCompoundId());
+    }
 
-        Set<String> commonDislikes = new HashSet<>(otherProfile.getDislikes());
-        commonDislikes.retainAll(getDislikes());
+    /**
+     * Count an activity of the author.
+     *
+     * @param activityVerb the verb of the activity
+     * @param activityObject the object of the activity (may be empty)
+     */
+    private void addActivity(String activityVerb, String activityObject) {
+        activities.increment(Entities.getActivityKey(Vocabulary.getId(activityVerb), Vocabulary.getId(activityObject)));
+    }
 
-        Set<String> commonWants = new HashSet<>(otherProfile.getWants());
-        commonWants.retainAll(getWants());
+    /**
+     * Adds one quality point to this statement.
+     * Quality points are used to rank statements together with the Lexical Density.
+     *
+     * @param statement the statement to add a quality point to
+     */
+    private void addQualityPoint(Statement statement) {
+        int ordinal = getOrdinal(statement);
+        qualityPoints[ordinal]++;
+        quality[ordinal] = Double.NaN;
+    }
 
-        Set<String> commonFeelings = new HashSet<>(otherProfile.getFeelings());
-        commonWants.retainAll(getFeelings());
+    /**
+     * The ordinal of a statement, assigning a new ordinal if the statement doesn't have one yet.
+     *
+     * @param statement the statement
+     * @return ordinal
+     */
+    private int getOrdinal(Statement statement) {
+        Integer ordinal = ordinals.get(statement);
+        if (ordinal != null) return ordinal;
+
+        ordinal = ordinalStatements.size();
+        ordinals.put(statement, ordinal);
+        ordinalStatements.add(statement);
+
+        if (ordinal == qualityPoints.length) {
+            qualityPoints = Arrays.copyOf(qualityPoints, ordinal * 2);
+            quality = Arrays.copyOf(quality, ordinal * 2);
+            lexicalDensity = Arrays.copyOf(lexicalDensity, ordinal * 2);
+        }
+        quality[ordinal] = Double.NaN;
+        lexicalDensity[ordinal] = Double.NaN;
 
-        // add all together as commonalities
-        Set<String> commonEntities = new HashSet<>();
-        commonEntities.addAll(commonLocations);
-        commonEntities.addAll(commonPossessions);
-        commonEntities.addAll(commonStudies);
-        commonEntities.addAll(commonWork);
-        commonEntities.addAll(commonIdentities);
-        commonEntities.addAll(commonProperNouns);
-        commonEntities.addAll(commonLikes);
-        commonEntities.addAll(commonDislikes);
-        commonEntities.addAll(commonWants);
-        commonEntities.addAll(commonFeelings);
+        return ordinal;
+    }
 
-        return  commonEntities;
+    /**
+     * The ordinal of a statement without assigning a new one.
+     *
+     * @param statement the statement
+     * @return ordinal, or -1 if the statement doesn't have one
+     */
+    int findOrdinal(Statement statement) {
+        Integer ordinal = ordinals.get(statement);
+        return ordinal != null? ordinal : -1;
     }
 
     /**
-     * Find activities in common between this prifle and another one.
+     * The index of the interesting statements used for scoring relevance.
      *
-     * @param otherProfile the other profile to search in
-     * @return the common activities
+     * @return index
      */
-    public Map<String, Set<String>> getCommonActivities(Profile otherProfile) {
-        Map<String, Set<String>> commonActivities = new HashMap<>();
-        Map<String, Set<String>> otherActivities = otherProfile.getActivities();
-
-        for (String activityVerb : activities.keySet()) {
-            if (otherActivities.containsKey(activityVerb)) {
-                Set<String> objects = activities.get(activityVerb);
-                Set<String> otherObjects = new HashSet<>(otherActivities.get(activityVerb));
-                otherObjects.retainAll(objects);
-                Set<String> commonObjects = commonActivities.getOrDefault(activityVerb, new HashSet<>());
-                commonObjects.addAll(otherObjects);
-                commonActivities.put(activityVerb, commonObjects);
-            }
+    RelevanceIndex getRelevanceIndex() {
+        if (relevanceIndex == null) {
+            relevanceIndex = new RelevanceIndex();
+            for (Statement statement : getInterestingStatements()) relevanceIndex.add(getOrdinal(statement), statement);
         }
 
-        return commonActivities;
+        return relevanceIndex;
     }
 
     /**
-     * Adds one quality point to this statement.
-     * Quality points are used to rank statements together with the Lexical Density.
+     * The number of ordinals assigned so far.
      *
-     * @param statement the statement to add a quality point to
+     * @return ordinal count
      */
-    private void addQualityPoint(Statement statement) {
-        qualityPointsMap.put(statement, qualityPointsMap.getOrDefault(statement, 0) + 1);
+    int getOrdinalCount() {
+        return ordinalStatements.size();
     }
 
     /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
+     * The quality points of a statement.
+     *
+     * @param statement the statement
+     * @return quality points
      */
-    private void unpackEmbeddedStatements() {
-        Set<Statement> embeddingStatements = new HashSet<>();
-        Set<Statement> embeddedStatements = new HashSet<>();
+    int getQualityPoints(Statement statement) {
+        int ordinal = findOrdinal(statement);
+        return ordinal != -1? qualityPoints[ordinal] : 0;
+    }
 
-        for (Statement statement : statements) {
-            // TODO: unpacked statements do not carry over negation, e.g. "I think ..." and "I don't think ..."
-            if (OPINION_PATTERN_1.matches(statement)) {
-                for (StatementComponent capture : OPINION_PATTERN_1.getCaptures()) {
-                    Statement embeddedStatement = (Statement) capture;
-                    embeddedStatement.setOrigin(statement.getOrigin());
-                    embeddedStatements.add(embeddedStatement);
-                    embeddingStatements.add(statement);
-                    qualityPointsMap.put(embeddedStatement, qualityPointsMap.getOrDefault(statement, 0) + 1);
-                    logger.info("unpacked " + embeddedStatement + " from " + statement);
-                }
-            }
+    /**
+     * Match a pattern against a statement, skipping the pattern if it isn't a candidate for the statement.
+     *
+     * @param pattern the pattern to match
+     * @param statement the statement to match against
+     * @param candidates the candidate patterns of the statement, see PatternSet
+     * @return the result of the match
+     */
+    private static MatchResult match(StatementPattern pattern, Statement statement, Set<StatementPattern> candidates) {
+        return candidates.contains(pattern)? pattern.match(statement) : MatchResult.NO_MATCH;
+    }
 
-            if (OPINION_PATTERN_2.matches(statement)) {
-                Set<StatementComponent> opinionComponents = OPINION_PATTERN_2.getNonCaptures(statement);
-                Statement embeddedStatement = new Statement(opinionComponents);
+    /**
+     * Unpack a statement according to certain patterns to replace it with its embedded statements.
+     *
+     * @param statement the statement to unpack
+     * @param candidates the candidate patterns of the statement
+     * @return the embedded statements, or null if the statement is not unpacked
+     */
+    private List<Statement> unpack(Statement statement, Set<StatementPattern> candidates) {
+        List<Statement> embeddedStatements = null;
+
+        // TODO: unpacked statements do not carry over negation, e.g. "I think ..." and "I don't think ..."
+        MatchResult opinionMatch1 = match(OPINION_PATTERN_1, statement, candidates);
+        if (opinionMatch1.matches()) {
+            for (StatementComponent capture : opinionMatch1.getCaptures()) {
+                Statement embeddedStatement = (Statement) capture;
                 embeddedStatement.setOrigin(statement.getOrigin());
+                if (embeddedStatements == null) embeddedStatements = new ArrayList<>();
                 embeddedStatements.add(embeddedStatement);
-                embeddingStatements.add(statement);
-                qualityPointsMap.put(embeddedStatement, qualityPointsMap.getOrDefault(statement, 0) + 1);
+                addQualityPoint(embeddedStatement);
                 logger.info("unpacked " + embeddedStatement + " from " + statement);
             }
         }
 
-        statements.removeAll(embeddingStatements);
-        statements.addAll(embeddedStatements);
-        logger.info("total statements unpacked: " + embeddingStatements.size());
-    }
-
-    /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
-     */
-    private void registerEmotionalContent() {
-        for (Statement statement : statements) {
-            if (LIKE_PATTERN_1.matches(statement)) {
-                for (StatementComponent capture : LIKE_PATTERN_1.getCaptures()) {
-                    if (capture instanceof  AbstractComponent) {
-                        AbstractComponent abstractComponent = (AbstractComponent) capture;
-                        if (!abstractComponent.isVerb()) {
-                            likes.add(abstractComponent.getNormalCompound());
-                            logger.info("found like " + abstractComponent + " in " + statement);
-                        } else {
-                            String activityVerb = abstractComponent.getNormalCompound();
-                            Set<String> objects = activities.getOrDefault(activityVerb, new HashSet<>());
-                            objects.add("");
-                            activities.put(activityVerb, objects);
-                            logger.info("found liked activity " + abstractComponent + " in " + statement);
-                        }
-                    } else  if (capture instanceof Statement) {
-                        Statement embeddedStatement = (Statement) capture;
-                        String activityVerb = embeddedStatement.getVerb().getNormalCompound();
-                        String activityObject = embeddedStatement.getDirectObject() != null? " " + embeddedStatement.getDirectObject().getNormalCompound() : "";
-                        Set<String> objects = activities.getOrDefault(activityVerb, new HashSet<>());
-                        objects.add(activityObject);
-
-                        activities.put(activityVerb, objects);
-                        logger.info("found liked activity " + embeddedStatement + " in " + statement);
-                    }
-                }
+        MatchResult opinionMatch2 = match(OPINION_PATTERN_2, statement, candidates);
+        if (opinionMatch2.matches()) {
+            Set<StatementComponent> opinionComponents = opinionMatch2.getNonCaptures(statement);
+            Statement embeddedStatement = new Statement(opinionComponents);
+            embeddedStatement.setOrigin(statement.getOrigin());
+            if (embeddedStatements == null) embeddedStatements = new ArrayList<>();
+            embeddedStatements.add(embeddedStatement);
+            addQualityPoint(embeddedStatement);
+            logger.info("unpacked " + embeddedStatement + " from " + statement);
+        }
 
-                addQualityPoint(statement);
-            }
+        return embeddedStatements;
+    }
 
-            if (LIKE_PATTERN_2.matches(statement)) {
-                for (StatementComponent capture : LIKE_PATTERN_2.getCaptures()) {
+    /**
+     * Register the likes, dislikes, wants, feelings and liked/wanted activities found in a statement.
+     *
+     * @param statement the statement
+     * @param candidates the candidate patterns of the statement
+     */
+    private void registerEmotionalContent(Statement statement, Set<StatementPattern> candidates) {
+        MatchResult likeMatch1 = match(LIKE_PATTERN_1, statement, candidates);
+        if (likeMatch1.matches()) {
+            for (StatementComponent capture : likeMatch1.getCaptures()) {
+                if (capture instanceof  AbstractComponent) {
                     AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    likes.add(abstractComponent.getNormalCompound());
-                    logger.info("found like " + abstractComponent + " in " + statement);
+                    if (!abstractComponent.isVerb()) {
+                        addEntity(EntityType.LIKE, abstractComponent);
+                        logger.info("found like " + abstractComponent + " in " + statement);
+                    } else {
+                        addActivity(abstractComponent.getNormalCompound(), "");
+                        logger.info("found liked activity " + abstractComponent + " in " + statement);
+                    }
+                } else  if (capture instanceof Statement) {
+                    Statement embeddedStatement = (Statement) capture;
+                    String activityVerb = embeddedStatement.getVerb().getNormalCompound();
+                    String activityObject = embeddedStatement.getDirectObject() != null? " " + embeddedStatement.getDirectObject().getNormalCompound() : "";
+                    addActivity(activityVerb, activityObject);
+                    logger.info("found liked activity " + embeddedStatement + " in " + statement);
                 }
-
-                addQualityPoint(statement);
             }
 
-            if (DISLIKE_PATTERN_1.matches(statement)) {
-                for (StatementComponent capture : DISLIKE_PATTERN_1.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    dislikes.add(abstractComponent.getNormalCompound());
-                    logger.info("found dislike " + abstractComponent + " in " + statement);
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult likeMatch2 = match(LIKE_PATTERN_2, statement, candidates);
+        if (likeMatch2.matches()) {
+            for (StatementComponent capture : likeMatch2.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.LIKE, abstractComponent);
+                logger.info("found like " + abstractComponent + " in " + statement);
             }
 
-            if (DISLIKE_PATTERN_2.matches(statement)) {
-                for (StatementComponent capture : DISLIKE_PATTERN_2.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    dislikes.add(abstractComponent.getNormalCompound());
-                    logger.info("found dislike " + abstractComponent + " in " + statement);
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult dislikeMatch1 = match(DISLIKE_PATTERN_1, statement, candidates);
+        if (dislikeMatch1.matches()) {
+            for (StatementComponent capture : dislikeMatch1.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.DISLIKE, abstractComponent);
+                logger.info("found dislike " + abstractComponent + " in " + statement);
             }
 
-            if (WANT_PATTERN.matches(statement)) {
-                for (StatementComponent capture : WANT_PATTERN.getCaptures()) {
-                    if (capture instanceof  AbstractComponent) {
-                        AbstractComponent abstractComponent = (AbstractComponent) capture;
-                        if (!abstractComponent.isVerb()) {
-                            wants.add(abstractComponent.getNormalCompound());
-                            logger.info("found want " + abstractComponent + " in " + statement);
-                        } else {
-                            String activityVerb = abstractComponent.getNormalCompound();
-                            Set<String> objects = activities.getOrDefault(activityVerb, new HashSet<>());
-                            objects.add("");
-                            activities.put(activityVerb, objects);
-                            logger.info("found wanted activity " + abstractComponent + " in " + statement);
-                        }
-                    } else  if (capture instanceof Statement) {
-                        Statement embeddedStatement = (Statement) capture;
-                        String activityVerb = embeddedStatement.getVerb().getNormalCompound();
-                        String activityObject = embeddedStatement.getDirectObject() != null? " " + embeddedStatement.getDirectObject().getNormalCompound() : "";
-                        Set<String> objects = activities.getOrDefault(activityVerb, new HashSet<>());
-                        objects.add(activityObject);
-
-                        activities.put(activityVerb, objects);
-                        logger.info("found wanted activity " + embeddedStatement + " in " + statement);
-                    }
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult dislikeMatch2 = match(DISLIKE_PATTERN_2, statement, candidates);
+        if (dislikeMatch2.matches()) {
+            for (StatementComponent capture : dislikeMatch2.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.DISLIKE, abstractComponent);
+                logger.info("found dislike " + abstractComponent + " in " + statement);
             }
 
-            if (FEEL_PATTERN.matches(statement)) {
-                for (StatementComponent capture : FEEL_PATTERN.getCaptures()) {
+            addQualityPoint(statement);
+        }
+
+        MatchResult wantMatch = match(WANT_PATTERN, statement, candidates);
+        if (wantMatch.matches()) {
+            for (StatementComponent capture : wantMatch.getCaptures()) {
+                if (capture instanceof  AbstractComponent) {
                     AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    feelings.add(abstractComponent.getNormalCompound());
-                    logger.info("found feeling " + abstractComponent + " in " + statement);
+                    if (!abstractComponent.isVerb()) {
+                        addEntity(EntityType.WANT, abstractComponent);
+                        logger.info("found want " + abstractComponent + " in " + statement);
+                    } else {
+                        addActivity(abstractComponent.getNormalCompound(), "");
+                        logger.info("found wanted activity " + abstractComponent + " in " + statement);
+                    }
+                } else  if (capture instanceof Statement) {
+                    Statement embeddedStatement = (Statement) capture;
+                    String activityVerb = embeddedStatement.getVerb().getNormalCompound();
+                    String activityObject = embeddedStatement.getDirectObject() != null? " " + embeddedStatement.getDirectObject().getNormalCompound() : "";
+                    addActivity(activityVerb, activityObject);
+                    logger.info("found wanted activity " + embeddedStatement + " in " + statement);
                 }
-
-                addQualityPoint(statement);
             }
+
+            addQualityPoint(statement);
         }
 
-        logger.info("total likes found: " + likes.size());
-        logger.info("total wants found: " + wants.size());
-        logger.info("total activities found: " + activities.size());
-        logger.info("total feelings found: " + feelings.size());
+        MatchResult feelMatch = match(FEEL_PATTERN, statement, candidates);
+        if (feelMatch.matches()) {
+            for (StatementComponent capture : feelMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.FEELING, abstractComponent);
+                logger.info("found feeling " + abstractComponent + " in " + statement);
+            }
+
+            addQualityPoint(statement);
+        }
     }
 
     /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
+     * Register the proper nouns found in a statement.
+     *
+     * @param statement the statement
+     * @param candidates the candidate patterns of the statement
      */
-    private void registerProperNouns() {
-        for (Statement statement : statements) {
-            if (PROPER_NOUN_PATTERN.matches(statement)) {
-                for (StatementComponent capture : PROPER_NOUN_PATTERN.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    properNouns.add(abstractComponent.getNormalCompound());
-                    logger.info("found proper noun " + abstractComponent + " in " + statement);
-                }
-
-                addQualityPoint(statement);
+    private void registerProperNouns(Statement statement, Set<StatementPattern> candidates) {
+        MatchResult properNounMatch = match(PROPER_NOUN_PATTERN, statement, candidates);
+        if (properNounMatch.matches()) {
+            for (StatementComponent capture : properNounMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.PROPER_NOUN, abstractComponent);
+                logger.info("found proper noun " + abstractComponent + " in " + statement);
             }
-        }
 
-        logger.info("total proper nouns found: " + properNouns.size());
+            addQualityPoint(statement);
+        }
     }
 
     /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
+     * Register the studies, work, identities and activities found in a statement.
+     *
+     * @param statement the statement
+     * @param candidates the candidate patterns of the statement
      */
-    private void registerOccupations() {
-        for (Statement statement : statements) {
-            if (STUDY_PATTERN.matches(statement)) {
-                for (StatementComponent capture : STUDY_PATTERN.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    studies.add(abstractComponent.getNormalCompound());
-                    logger.info("found study " + abstractComponent + " in " + statement);
-                }
-
-                addQualityPoint(statement);
+    private void registerOccupations(Statement statement, Set<StatementPattern> candidates) {
+        MatchResult studyMatch = match(STUDY_PATTERN, statement, candidates);
+        if (studyMatch.matches()) {
+            for (StatementComponent capture : studyMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.STUDY, abstractComponent);
+                logger.info("found study " + abstractComponent + " in " + statement);
             }
 
-            if (WORK_PATTERN.matches(statement)) {
-                for (StatementComponent capture : WORK_PATTERN.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    work.add(abstractComponent.getNormalCompound());
-                    logger.info("found work " + abstractComponent + " in " + statement);
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult workMatch = match(WORK_PATTERN, statement, candidates);
+        if (workMatch.matches()) {
+            for (StatementComponent capture : workMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.WORK, abstractComponent);
+                logger.info("found work " + abstractComponent + " in " + statement);
             }
 
-            if (IDENTITY_PATTERN_1.matches(statement)) {
-                for (StatementComponent capture : IDENTITY_PATTERN_1.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    identities.add(abstractComponent.getNormalCompound());
-                    logger.info("found identity " + abstractComponent + " in " + statement);
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult identityMatch1 = match(IDENTITY_PATTERN_1, statement, candidates);
+        if (identityMatch1.matches()) {
+            for (StatementComponent capture : identityMatch1.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.IDENTITY, abstractComponent);
+                logger.info("found identity " + abstractComponent + " in " + statement);
             }
 
-            if (IDENTITY_PATTERN_2.matches(statement)) {
-                for (StatementComponent capture : IDENTITY_PATTERN_2.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    identities.add(abstractComponent.getNormalCompound());
-                    logger.info("found identity " + abstractComponent + " in " + statement);
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult identityMatch2 = match(IDENTITY_PATTERN_2, statement, candidates);
+        if (identityMatch2.matches()) {
+            for (StatementComponent capture : identityMatch2.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.IDENTITY, abstractComponent);
+                logger.info("found identity " + abstractComponent + " in " + statement);
             }
 
-            if (ACTIVITY_PATTERN.matches(statement)) {
-                String activityVerb = null;
-                String activityObject = null;
+            addQualityPoint(statement);
+        }
+
+        MatchResult activityMatch = match(ACTIVITY_PATTERN, statement, candidates);
+        if (activityMatch.matches()) {
+            String activityVerb = null;
+            String activityObject = null;
 
-                for (StatementComponent capture : ACTIVITY_PATTERN.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    if (capture instanceof Verb) activityVerb = abstractComponent.getNormalCompound();
-                    if (capture instanceof DirectObject) activityObject = abstractComponent.getNormalCompound();
-                }
+            for (StatementComponent capture : activityMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                if (capture instanceof Verb) activityVerb = abstractComponent.getNormalCompound();
+                if (capture instanceof DirectObject) activityObject = abstractComponent.getNormalCompound();
+            }
 
-                if (activityVerb != null && activityObject != null) {
-                    Set<String> existingActivities = activities.getOrDefault(activityVerb, new HashSet<>());
-                    existingActivities.add(activityObject);
-                    activities.put(activityVerb, existingActivities);
-                    logger.info("found activity " + activityVerb + " " + activityObject + " in " + statement);
-                    addQualityPoint(statement);
-                }
+            if (activityVerb != null && activityObject != null) {
+                addActivity(activityVerb, activityObject);
+                logger.info("found activity " + activityVerb + " " + activityObject + " in " + statement);
+                addQualityPoint(statement);
             }
         }
-
-        logger.info("total studies found: " + studies.size());
-        logger.info("total work found: " + work.size());
-        logger.info("total identities found: " + identities.size());
     }
 
     /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
+     * Register the locations found in a statement.
+     *
+     * @param statement the statement
+     * @param candidates the candidate patterns of the statement
      */
-    private void registerLocations() {
-        for (Statement statement : statements) {
-            if (LOCATION_PATTERN.matches(statement)) {
-                for (StatementComponent capture : LOCATION_PATTERN.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    locations.add(abstractComponent.getNormalCompound());
-                    logger.info("found location " + abstractComponent + " in " + statement);
-                }
-
-                addQualityPoint(statement);
+    private void registerLocations(Statement statement, Set<StatementPattern> candidates) {
+        MatchResult locationMatch = match(LOCATION_PATTERN, statement, candidates);
+        if (locationMatch.matches()) {
+            for (StatementComponent capture : locationMatch.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.LOCATION, abstractComponent);
+                logger.info("found location " + abstractComponent + " in " + statement);
             }
-        }
 
-        logger.info("total locations found: " + locations.size());
+            addQualityPoint(statement);
+        }
     }
 
     /**
-     * Unpack statements according to certain patterns to replace them with their embedded statements.
+     * Register the possessions found in a statement.
+     *
+     * @param statement the statement
+     * @param candidates the candidate patterns of the statement
      */
-    private void registerPossessions() {
-        for (Statement statement : statements) {
-            if (POSSESSION_PATTERN_1.matches(statement)) {
-                for (StatementComponent capture : POSSESSION_PATTERN_1.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    possessions.add(abstractComponent.getNormalCompound());
-                    logger.info("found possession " + abstractComponent + " in " + statement + " using POSSESSION_PATTERN_1");
-                }
-
-                addQualityPoint(statement);
+    private void registerPossessions(Statement statement, Set<StatementPattern> candidates) {
+        MatchResult possessionMatch1 = match(POSSESSION_PATTERN_1, statement, candidates);
+        if (possessionMatch1.matches()) {
+            for (StatementComponent capture : possessionMatch1.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.POSSESSION, abstractComponent);
+                logger.info("found possession " + abstractComponent + " in " + statement + " using POSSESSION_PATTERN_1");
             }
 
-            if (POSSESSION_PATTERN_2.matches(statement)) {
-                for (StatementComponent capture : POSSESSION_PATTERN_2.getCaptures()) {
-                    AbstractComponent abstractComponent = (AbstractComponent) capture;
-                    possessions.add(abstractComponent.getNormalCompound());
-                    logger.info("found possession " + abstractComponent + " in " + statement + " using POSSESSION_PATTERN_2");
-                }
+            addQualityPoint(statement);
+        }
 
-                addQualityPoint(statement);
+        MatchResult possessionMatch2 = match(POSSESSION_PATTERN_2, statement, candidates);
+        if (possessionMatch2.matches()) {
+            for (StatementComponent capture : possessionMatch2.getCaptures()) {
+                AbstractComponent abstractComponent = (AbstractComponent) capture;
+                addEntity(EntityType.POSSESSION, abstractComponent);
+                logger.info("found possession " + abstractComponent + " in " + statement + " using POSSESSION_PATTERN_2");
             }
-        }
 
-        logger.info("total possessions found: " + possessions.size());
+            addQualityPoint(statement);
+        }
     }
 
     /**
@@ -647,35 +930,59 @@ public class Profile {
      * @return interesting statements
      */
     public Set<Statement> getInterestingStatements() {
-        if (interestingStatements.isEmpty()) {
-            for (Statement statement : getStatements()) {
-                if (INTERESTING_PATTERN.matches(statement) && !INTERESTING_ANTIPATTERN_1.matches(statement)) interestingStatements.add(statement);
-            }
-        }
-
         return interestingStatements;
     }
 
     /**
      * Returns statements in order of diminishing lexical density.
+     * The full ranking is calculated the first time it is needed and then kept up to date.
      *
      * @return statements
      */
     public List<Statement> getStatementsByLexicalDensity() {
-        List<Statement> rankedStatements = new ArrayList<>(getInterestingStatements());
-        rankedStatements.sort(new LexicalDensityComparator());
-        return rankedStatements;
+        if (lexicalDensityRanking == null) {
+            lexicalDensityRanking = Rankings.rank(getInterestingStatements(), this::getLexicalDensity, Integer.MAX_VALUE);
+        }
+
+        return new ArrayList<>(lexicalDensityRanking);
+    }
+
+    /**
+     * Returns the top statements in order of diminishing lexical density.
+     * Only the top statements are ranked, unless the full ranking has already been calculated.
+     *
+     * @param limit the maximum number of statements to return
+     * @return statements
+     */
+    public List<Statement> getStatementsByLexicalDensity(int limit) {
+        if (lexicalDensityRanking != null) return getTop(lexicalDensityRanking, limit);
+        return Rankings.rank(getInterestingStatements(), this::getLexicalDensity, limit);
     }
 
     /**
      * Returns statements in order of diminishing quality.
+     * The full ranking is calculated the first time it is needed and then kept up to date.
      *
      * @return statements
      */
     public List<Statement> getStatementsByQuality() {
-        List<Statement> rankedStatements = new ArrayList<>(getInterestingStatements());
-        rankedStatements.sort(new QualityComparator());
-        return rankedStatements;
+        if (qualityRanking == null) {
+            qualityRanking = Rankings.rank(getInterestingStatements(), this::getStatementQuality, Integer.MAX_VALUE);
+        }
+
+        return new ArrayList<>(qualityRanking);
+    }
+
+    /**
+     * Returns the top statements in order of diminishing quality.
+     * Only the top statements are ranked, unless the full ranking has already been calculated.
+     *
+     * @param limit the maximum number of statements to return
+     * @return statements
+     */
+    public List<Statement> getStatementsByQuality(int limit) {
+        if (qualityRanking != null) return getTop(qualityRanking, limit);
+        return Rankings.rank(getInterestingStatements(), this::getStatementQuality, limit);
     }
 
     /**
@@ -685,59 +992,141 @@ public class Profile {
      * @return relevant statements
      */
     public List<Statement> getStatementsByRelevance(RelevanceComparator relevanceComparator) {
-        List<Statement> rankedStatements = new ArrayList<>(getInterestingStatements());
-        rankedStatements.sort(relevanceComparator);
-        return rankedStatements;
+        return getStatementsByRelevance(relevanceComparator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the top statements in order of diminishing relevance from the perspective of another profile.
+     *
+     * @param relevanceComparator the comparator used to rank the statements by relevance
+     * @param limit the maximum number of statements to return
+     * @return relevant statements
+     */
+    public List<Statement> getStatementsByRelevance(RelevanceComparator relevanceComparator, int limit) {
+        return Rankings.rank(getInterestingStatements(), relevanceComparator::getStatementRelevance, limit);
+    }
+
+    private static List<Statement> getTop(List<Statement> ranking, int limit) {
+        return new ArrayList<>(ranking.subList(0, Math.max(0, Math.min(limit, ranking.size()))));
+    }
+
+    /**
+     * The version of this profile, which changes whenever statements are added to the profile.
+     * Versions are unique across all profiles, so a version identifies both a profile and its current state.
+     *
+     * @return version
+     */
+    @Override
+    public long getVersion() {
+        return version;
     }
 
     public Set<Statement> getStatements() {
         return statements;
     }
 
+    /**
+     * The entities of a specific type found in the statements of the author.
+     *
+     * @param type the relationship of the entities to the author
+     * @return entities
+     */
+    public Set<String> getEntities(EntityType type) {
+        return Entities.toWordSet(entities[type.ordinal()]);
+    }
+
+    /**
+     * How many times an entity of a specific type was found in the statements of the author.
+     *
+     * @param type the relationship of the entity to the author
+     * @param entity the entity
+     * @return count
+     */
+    public int getEntityCount(EntityType type, String entity) {
+        return entities[type.ordinal()].get(Vocabulary.findId(entity));
+    }
+
+    /**
+     * The entities of a specific type along with how many times each was found.
+     *
+     * @param type the relationship of the entities to the author
+     * @return counts by entity
+     */
+    public Map<String, Integer> getEntityCounts(EntityType type) {
+        return Entities.toWordCounts(entities[type.ordinal()]);
+    }
+
     public Set<String> getLocations() {
-        return locations;
+        return getEntities(EntityType.LOCATION);
     }
 
     public Set<String> getPossessions() {
-        return possessions;
+        return getEntities(EntityType.POSSESSION);
     }
 
     public Set<String> getStudies() {
-        return studies;
+        return getEntities(EntityType.STUDY);
     }
 
     public Set<String> getWork() {
-        return work;
+        return getEntities(EntityType.WORK);
     }
 
     public Set<String> getIdentities() {
-        return identities;
+        return getEntities(EntityType.IDENTITY);
     }
 
     public Set<String> getProperNouns() {
-        return properNouns;
+        return getEntities(EntityType.PROPER_NOUN);
     }
 
     public Set<String> getLikes() {
-        return likes;
+        return getEntities(EntityType.LIKE);
     }
 
     public Set<String> getDislikes() {
-        return dislikes;
+        return getEntities(EntityType.DISLIKE);
     }
 
     public Set<String> getWants() {
-        return wants;
+        return getEntities(EntityType.WANT);
     }
 
+    public Set<String> getFeelings() {
+        return getEntities(EntityType.FEELING);
+    }
+
+    /**
+     * The activities found in the statements of the author.
+     *
+     * @return activity objects by activity verb
+     */
     public Map<String, Set<String>> getActivities() {
-        return activities;
+        return Entities.toActivityMap(activities);
     }
 
-    public Set<String> getFeelings() {
-        return feelings;
+    /**
+     * How many times an activity was found in the statements of the author.
+     *
+     * @param activityVerb the verb of the activity
+     * @param activityObject the object of the activity, as found in getActivities()
+     * @return count
+     */
+    public int getActivityCount(String activityVerb, String activityObject) {
+        return Entities.getActivityCount(activities, activityVerb, activityObject);
+    }
+
+    @Override
+    public IntCountMap getEntityMap(EntityType type) {
+        return entities[type.ordinal()];
     }
 
+    @Override
+    public LongCountMap getActivityMap() {
+        return activities;
+    }
+
+
     /**
      * Calculates the quality for a statement.
      * Used for rankings statements.
@@ -745,21 +1134,32 @@ public class Profile {
      * @param statement statement to assess
      * @return quality of statement
      */
-    private double getStatementQuality(Statement statement) {
-        if (!qualityMap.containsKey(statement)) {
+    double getStatementQuality(Statement statement) {
+        int ordinal = getOrdinal(statement);
+
+        if (Double.isNaN(quality[ordinal])) {
             // retrieve the baseline value, in this case lexical density
-            double baseline = statement.getLexicalDensity();
+            double baseline = getLexicalDensity(statement);
             double multiplier = 0.2;
-            double adjustment = qualityPointsMap.getOrDefault(statement, 0) * multiplier;
-            double quality = baseline + adjustment;
+            double adjustment = qualityPoints[ordinal] * multiplier;
 
-            // save to map for later lazy-loading
-            qualityMap.put(statement, quality);
-
-            return quality;
-        } else {
-            return qualityMap.get(statement);
+            // save to array for later lazy-loading
+            quality[ordinal] = baseline + adjustment;
         }
+
+        return quality[ordinal];
+    }
+
+    /**
+     * The lexical density of a statement, calculated once since it is costly to calculate.
+     *
+     * @param statement the statement
+     * @return lexical density
+     */
+    private double getLexicalDensity(Statement statement) {
+        int ordinal = getOrdinal(statement);
+        if (Double.isNaN(lexicalDensity[ordinal])) lexicalDensity[ordinal] = statement.getLexicalDensity();
+        return lexicalDensity[ordinal];
     }
 
     /**
@@ -785,6 +1185,8 @@ public class Profile {
 
     /**
      * Used to sort Statements by quality.
+     * Every comparison looks up the ordinals of the statements, so getStatementsByQuality should be used
+     * for ranking, which only looks up each statement once.
      */
     public class QualityComparator implements Comparator<Statement> {
         @Override
@@ -806,72 +1208,86 @@ public class Profile {
 
     /**
      * Used to sort Statements by quality relative to other profiles.
+     * Like the QualityComparator, getStatementsByRelevance should be used for ranking.
      */
     public static class RelevanceComparator implements Comparator<Statement> {
         protected final Logger logger = LoggerFactory.getLogger(getClass());
 
         private final Profile statementProfile;
-        private final Set<StatementPattern> relevancePatterns;
-        private final Map<Statement, Integer> relevancePointsMap = new HashMap<>();
-        private final Map<Statement, Double> relevanceMap = new HashMap<>();
+
+        // indexed by the ordinals of the statements in the statement profile
+        private int[] relevancePoints;
+        private double[] relevance;  // NaN until calculated
 
         /**
          *
          *
-         * @param testProfile the profile to check for commonalities
+         * @param testProfile the profile (or restored snapshot) to check for commonalities
          * @param statementProfile the profile to get ranked statements from
          */
-        public RelevanceComparator(Profile testProfile, Profile statementProfile) {
+        public RelevanceComparator(EntityProfile testProfile, Profile statementProfile) {
+            this(statementProfile, Entities.getCommonEntities(testProfile, statementProfile), Entities.getCommonActivities(testProfile, statementProfile));
+        }
+
+        /**
+         * Create a comparator from commonalities that have already been found, see ProfileComparisonCache.
+         *
+         * @param statementProfile the profile to get ranked statements from
+         * @param commonEntities the entities in common between the profiles
+         * @param commonActivities the activities in common between the profiles
+         */
+        RelevanceComparator(Profile statementProfile, Set<String> commonEntities, Map<String, Set<String>> commonActivities) {
             this.statementProfile = statementProfile;
-            this.relevancePatterns = new HashSet<>();
+
+            // every interesting statement is assigned an ordinal when the index is built, before the arrays are sized
+            RelevanceIndex relevanceIndex = statementProfile.getRelevanceIndex();
+            relevancePoints = new int[statementProfile.getOrdinalCount()];
+            relevance = new double[statementProfile.getOrdinalCount()];
+            Arrays.fill(relevance, Double.NaN);
 
             // for discovering relevant entities
-            Set<String> commonEntities = testProfile.getCommonEntities(statementProfile);
             for (String entity : commonEntities) {
-                this.relevancePatterns.add(
-                        new StatementPattern(
-                                new NonVerbPattern().words(entity)
-                        )
-                );
+                for (int ordinal : relevanceIndex.findEntity(entity)) addRelevancePoint(ordinal);
             }
 
             // for discovering relevant activities
-            Map<String, Set<String>> commonActivities = testProfile.getCommonActivities(statementProfile);
             for (String activityVerb : commonActivities.keySet()) {
-                this.relevancePatterns.add(
-                        new StatementPattern(
-                                new VerbPattern().words(activityVerb),
-                                new NonVerbPattern().words(commonActivities.get(activityVerb))
-                        )
-                );
-            }
-
-            // assign relevance points based on the different patterns
-            for (Statement statement : statementProfile.getInterestingStatements()) {
-                for (StatementPattern pattern : relevancePatterns) {
-                    if (pattern.matches(statement)) {
-                        addRelevancePoint(statement);
-                    }
-                }
+                for (int ordinal : relevanceIndex.findActivity(activityVerb, commonActivities.get(activityVerb))) addRelevancePoint(ordinal);
             }
 
             logger.info("commonEntities: " + commonEntities);
             logger.info("commonActivities: " + commonActivities);
-            logger.info("relevancePatterns: " + relevancePatterns);
-            logger.info("relevancePointsMap: " + relevancePointsMap);
+            logger.info("relevancePointsMap: " + getRelevancePointsMap());
         }
 
+        /**
+         * The relevance of the statements that have been ranked so far.
+         *
+         * @return relevance by statement
+         */
         public Map<Statement, Double> getRelevanceMap() {
+            Map<Statement, Double> relevanceMap = new HashMap<>();
+            for (int ordinal = 0; ordinal < relevance.length; ordinal++) {
+                if (!Double.isNaN(relevance[ordinal])) relevanceMap.put(statementProfile.ordinalStatements.get(ordinal), relevance[ordinal]);
+            }
             return relevanceMap;
         }
 
+        private Map<Statement, Integer> getRelevancePointsMap() {
+            Map<Statement, Integer> relevancePointsMap = new HashMap<>();
+            for (int ordinal = 0; ordinal < relevancePoints.length; ordinal++) {
+                if (relevancePoints[ordinal] != 0) relevancePointsMap.put(statementProfile.ordinalStatements.get(ordinal), relevancePoints[ordinal]);
+            }
+            return relevancePointsMap;
+        }
+
         /**
-         * Adds one relevance point to this statement.
+         * Adds one relevance point to a statement.
          *
-         * @param statement the statement to add a quality point to
+         * @param ordinal the ordinal of the statement to add a relevance point to
          */
-        private void addRelevancePoint(Statement statement) {
-            relevancePointsMap.put(statement, relevancePointsMap.getOrDefault(statement, 0) + 1);
+        private void addRelevancePoint(int ordinal) {
+            relevancePoints[ordinal]++;
         }
 
         /**
@@ -882,20 +1298,22 @@ public class Profile {
          * @return quality of statement
          */
         private double getStatementRelevance(Statement statement) {
-            if (!relevanceMap.containsKey(statement)) {
+            int ordinal = statementProfile.findOrdinal(statement);
+
+            // statements added to the profile after this comparator was created have no relevance points
+            if (ordinal == -1 || ordinal >= relevance.length) return statementProfile.getStatementQuality(statement);
+
+            if (Double.isNaN(relevance[ordinal])) {
                 // retrieve the baseline value, in this case quality
                 double baseline = statementProfile.getStatementQuality(statement);
                 double multiplier = 0.3;
-                double adjustment = relevancePointsMap.getOrDefault(statement, 0) * multiplier;
-                double relevance = baseline + adjustment;
-
-                // save to map for later lazy-loading
-                relevanceMap.put(statement, relevance);
+                double adjustment = relevancePoints[ordinal] * multiplier;
 
-                return relevance;
-            } else {
-                return relevanceMap.get(statement);
+                // save to array for later lazy-loading
+                relevance[ordinal] = baseline + adjustment;
             }
+
+            return relevance[ordinal];
         }
 
         @Override
@@ -920,7 +1338,7 @@ public class Profile {
                 statement.getSummary() +
                 ": \"" + statement.getSentence() + "\"" +
                 ", density: " + df.format(statement.getLexicalDensity()) +
-                ", quality: " + df.format(qualityMap.get(statement)) +
+                ", quality: " + df.format(getStatementQuality(statement)) +
                 "}" + " " + statement.getOrigin();
     }
 
@@ -930,8 +1348,8 @@ public class Profile {
                 statement.getSummary() +
                 ": \"" + statement.getSentence() + "\"" +
                 ", density: " + df.format(statement.getLexicalDensity()) +
-                ", quality: " + df.format(qualityMap.get(statement)) +
-                ", relevance: " + df.format(comparator.getRelevanceMap().get(statement)) +
+                ", quality: " + df.format(getStatementQuality(statement)) +
+                ", relevance: " + df.format(comparator.getStatementRelevance(statement)) +
                 "}" + " " + statement.getOrigin();
     }
 }
@@ -0,0 +1,153 @@
+package statements.profile;
+
+import java.util.*;
+
+/**
+ * A bounded cache of the comparisons between pairs of profiles, i.e. their common entities and activities
+ * and the relevance of the statements of one profile from the perspective of the other.
+ * Either profile can be a restored ProfileSnapshot, except for the profile that statements are ranked from.
+ *
+ * Entries are keyed on the versions of the two profiles (see EntityProfile.getVersion). Versions are unique across
+ * all profiles and change whenever a profile changes, so an entry is never used again once either profile has changed.
+ * Such entries are no longer accessed and are evicted as the least recently used entries once the cache is full.
+ *
+ * Note: the returned collections are shared between callers and can't be modified.
+ */
+public class ProfileComparisonCache {
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final Map<Key, Comparison> comparisons;
+    private long hits;
+    private long misses;
+
+    public ProfileComparisonCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of profile pairs to keep
+     */
+    public ProfileComparisonCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+
+        comparisons = new LinkedHashMap<Key, Comparison>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Comparison> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * The entities in common between two profiles, see Profile.getCommonEntities.
+     *
+     * @param profile the profile
+     * @param otherProfile the other profile to search in
+     * @return the commonalities
+     */
+    public Set<String> getCommonEntities(EntityProfile profile, EntityProfile otherProfile) {
+        return getComparison(profile, otherProfile).commonEntities;
+    }
+
+    /**
+     * The activities in common between two profiles, see Profile.getCommonActivities.
+     *
+     * @param profile the profile
+     * @param otherProfile the other profile to search in
+     * @return the common activities
+     */
+    public Map<String, Set<String>> getCommonActivities(EntityProfile profile, EntityProfile otherProfile) {
+        return getComparison(profile, otherProfile).commonActivities;
+    }
+
+    /**
+     * The comparator ranking the statements of a profile by relevance to another profile.
+     * The relevance of each statement is only calculated once per pair of profile versions.
+     *
+     * @param testProfile the profile (or restored snapshot) to check for commonalities
+     * @param statementProfile the profile to get ranked statements from
+     * @return comparator
+     */
+    public synchronized Profile.RelevanceComparator getRelevanceComparator(EntityProfile testProfile, Profile statementProfile) {
+        Comparison comparison = getComparison(testProfile, statementProfile);
+
+        if (comparison.relevanceComparator == null) {
+            comparison.relevanceComparator = new Profile.RelevanceComparator(statementProfile, comparison.commonEntities, comparison.commonActivities);
+        }
+
+        return comparison.relevanceComparator;
+    }
+
+    private synchronized Comparison getComparison(EntityProfile profile, EntityProfile otherProfile) {
+        Key key = new Key(profile.getVersion(), otherProfile.getVersion());
+        Comparison comparison = comparisons.get(key);
+
+        if (comparison == null) {
+            misses++;
+            comparison = new Comparison(
+                    Collections.unmodifiableSet(Entities.getCommonEntities(profile, otherProfile)),
+                    Collections.unmodifiableMap(Entities.getCommonActivities(profile, otherProfile))
+            );
+            comparisons.put(key, comparison);
+        } else {
+            hits++;
+        }
+
+        return comparison;
+    }
+
+    public synchronized int size() {
+        return comparisons.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        comparisons.clear();
+    }
+
+    /**
+     * The versions of an ordered pair of profiles.
+     */
+    private static class Key {
+        private final long version;
+        private final long otherVersion;
+
+        Key(long version, long otherVersion) {
+            this.version = version;
+            this.otherVersion = otherVersion;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) return false;
+            Key otherKey = (Key) object;
+            return version == otherKey.version && otherVersion == otherKey.otherVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(version * 31 + otherVersion);
+        }
+    }
+
+    /**
+     * The cached comparison of a pair of profiles.
+     */
+    private static class Comparison {
+        private final Set<String> commonEntities;
+        private final Map<String, Set<String>> commonActivities;
+        private Profile.RelevanceComparator relevanceComparator;
+
+        Comparison(Set<String> commonEntities, Map<String, Set<String>> commonActivities) {
+            this.commonEntities = commonEntities;
+            this.commonActivities = commonActivities;
+        }
+    }
+}
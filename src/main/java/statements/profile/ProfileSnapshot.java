@@ -0,0 +1,616 @@
+package statements.profile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import statements.core.IntCountMap;
+import statements.core.LongCountMap;
+import statements.core.Statement;
+import statements.core.Vocabulary;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A compact copy of a Profile that can be written to and restored from a binary file.
+ *
+ * The snapshot contains the entity and activity counts of the profile along with its interesting statements,
+ * reduced to their summary, sentence, origin and quality, i.e. without any of the CoreNLP objects.
+ * Like in the profile, entities and activities are held as counts of ids in the shared Vocabulary,
+ * so a restored snapshot can be compared to profiles and other snapshots (see EntityProfile).
+ *
+ * A snapshot file contains any number of profiles, each stored under a key (e.g. the name of the author).
+ * Every distinct string is only stored once per file, in a string table at the start of the file,
+ * which is followed by an index of the snapshots (their keys, offsets and sizes) and then the snapshots themselves.
+ * The file is read through a memory-mapped buffer and each snapshot is only decoded when it is retrieved,
+ * so that a file of a large number of profiles can be opened quickly and without holding every profile in memory.
+ */
+public class ProfileSnapshot implements EntityProfile {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileSnapshot.class);
+
+    // the file starts with "PRFS" followed by the format version
+    private static final int MAGIC = 0x50524653;
+    private static final int VERSION = 3;
+
+    // the minimum size in bytes of the items of the file
+    private static final int ENTITY_BYTES = 2 * Integer.BYTES;
+    private static final int ACTIVITY_BYTES = 3 * Integer.BYTES;
+    private static final int STATEMENT_BYTES = 4 * Integer.BYTES + 2 * Double.BYTES;
+    private static final int INDEX_BYTES = 3 * Integer.BYTES;
+    private static final int SNAPSHOT_BYTES = (EntityType.values().length + 2) * Integer.BYTES;
+
+    private final IntCountMap[] entities = Entities.newEntityMaps();
+    private final LongCountMap activities = new LongCountMap();
+    private final long version;
+
+    // the interesting statements in order of diminishing quality
+    private final List<StatementSnapshot> statements;
+
+    public ProfileSnapshot(Profile profile) {
+        version = Entities.nextVersion();
+        for (EntityType type : EntityType.values()) entities[type.ordinal()].addAll(profile.getEntityMap(type));
+        activities.addAll(profile.getActivityMap());
+
+        statements = new ArrayList<>();
+        for (Statement statement : profile.getStatementsByQuality()) {
+            statements.add(new StatementSnapshot(
+                    statement.getSummary(),
+                    statement.getSentence(),
+                    statement.getOrigin() != null? statement.getOrigin().toString() : null,
+                    statement.getLexicalDensity(),
+                    profile.getQualityPoints(statement),
+                    profile.getStatementQuality(statement)
+            ));
+        }
+    }
+
+    /**
+     * Read a snapshot from a buffer.
+     *
+     * @param buffer the buffer containing just the snapshot
+     * @param file the file that the snapshot is read from
+     * @param version the version of the snapshot
+     * @throws IOException if the snapshot is corrupt
+     */
+    private ProfileSnapshot(ByteBuffer buffer, SnapshotFile file, long version) throws IOException {
+        this.version = version;
+
+        for (IntCountMap entityMap : entities) {
+            int size = getCount(buffer, ENTITY_BYTES);
+            for (int i = 0; i < size; i++) {
+                int wordId = file.getWordId(buffer.getInt());
+                entityMap.add(wordId, buffer.getInt());
+            }
+        }
+
+        int activityCount = getCount(buffer, ACTIVITY_BYTES);
+        for (int i = 0; i < activityCount; i++) {
+            int verbId = file.getWordId(buffer.getInt());
+            int objectId = file.getWordId(buffer.getInt());
+            activities.add(Entities.getActivityKey(verbId, objectId), buffer.getInt());
+        }
+
+        int statementCount = getCount(buffer, STATEMENT_BYTES);
+        statements = new ArrayList<>(statementCount);
+        for (int i = 0; i < statementCount; i++) {
+            String summary = file.getString(buffer.getInt());
+            String sentence = file.getString(buffer.getInt());
+            int originId = buffer.getInt();
+            double lexicalDensity = buffer.getDouble();
+            int qualityPoints = buffer.getInt();
+            double quality = buffer.getDouble();
+            statements.add(new StatementSnapshot(summary, sentence, originId != -1? file.getString(originId) : null, lexicalDensity, qualityPoints, quality));
+        }
+    }
+
+    /**
+     * Write profile snapshots to a file.
+     * The file is written to a temporary file first, so that concurrent readers never see a partial file.
+     *
+     * @param path the path of the file
+     * @param snapshots the snapshots to write, by key
+     * @throws IOException if the file couldn't be written
+     */
+    public static void write(Path path, Map<String, ProfileSnapshot> snapshots) throws IOException {
+        // every distinct string gets an id in the string table at the start of the file
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        for (Map.Entry<String, ProfileSnapshot> entry : snapshots.entrySet()) {
+            getStringId(stringIds, entry.getKey());
+            entry.getValue().addStrings(stringIds);
+        }
+
+        List<byte[]> stringBytes = new ArrayList<>(stringIds.size());
+        long offset = 3 * Integer.BYTES;
+        for (String string : stringIds.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            stringBytes.add(bytes);
+            offset += Integer.BYTES + bytes.length;
+        }
+
+        // the snapshots follow the index, which holds the offset and size of each snapshot
+        offset += 2 * Integer.BYTES + (long) snapshots.size() * INDEX_BYTES;
+        long size = offset;
+        for (ProfileSnapshot snapshot : snapshots.values()) size += snapshot.getSize();
+        if (size > Integer.MAX_VALUE) throw new IOException("too many profile snapshots for a single file: " + path);
+
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        Path tempPath = Files.createTempFile(path.toAbsolutePath().getParent(), "profiles", ".tmp");
+
+        // the temporary file is removed if it couldn't be written or moved
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(stringBytes.size());
+                for (byte[] bytes : stringBytes) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                out.writeInt(EntityType.values().length);
+                out.writeInt(snapshots.size());
+                for (Map.Entry<String, ProfileSnapshot> entry : snapshots.entrySet()) {
+                    int snapshotSize = entry.getValue().getSize();
+                    out.writeInt(stringIds.get(entry.getKey()));
+                    out.writeInt((int) offset);
+                    out.writeInt(snapshotSize);
+                    offset += snapshotSize;
+                }
+
+                for (ProfileSnapshot snapshot : snapshots.values()) snapshot.write(out, stringIds);
+            }
+
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+
+        logger.info("saved " + snapshots.size() + " profile snapshots to " + path);
+    }
+
+    /**
+     * Read profile snapshots from a file.
+     * Only the index of the file is read up front, each snapshot is decoded from the mapped file when it is retrieved
+     * from the returned map (and again every time it is retrieved). The map can be used by several threads.
+     * Each key is given a version when the file is read, which is the version of every snapshot decoded for the key.
+     *
+     * @param path the path of the file
+     * @return the snapshots by key, in the order they were written (a read-only map)
+     * @throws IOException if the file couldn't be read, has a different version or is corrupt
+     */
+    public static Map<String, ProfileSnapshot> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("profile snapshot file too large to map: " + path);
+
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException("not a profile snapshot file: " + path);
+
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("profile snapshot file " + path + " has version " + version + ", expected " + VERSION);
+
+            // the strings are only decoded when needed
+            int[] stringOffsets = new int[getCount(buffer, Integer.BYTES)];
+            for (int i = 0; i < stringOffsets.length; i++) {
+                stringOffsets[i] = buffer.position();
+                int length = getCount(buffer, 1);
+                buffer.position(buffer.position() + length);
+            }
+
+            // the entity types are stored in order, a file with other types can't be read
+            if (buffer.getInt() != EntityType.values().length) throw new IOException("profile snapshot file " + path + " has different entity types");
+
+            int snapshotCount = getCount(buffer, INDEX_BYTES);
+            SnapshotFile file = new SnapshotFile(path, buffer, stringOffsets, Entities.nextVersions(snapshotCount));
+            int snapshotsStart = buffer.position() + snapshotCount * INDEX_BYTES;
+            Map<String, Integer> indexes = new LinkedHashMap<>();
+            int[] offsets = new int[snapshotCount];
+            int[] sizes = new int[snapshotCount];
+
+            for (int i = 0; i < snapshotCount; i++) {
+                String key = file.getString(buffer.getInt());
+                offsets[i] = buffer.getInt();
+                sizes[i] = buffer.getInt();
+
+                if (offsets[i] < snapshotsStart || sizes[i] < SNAPSHOT_BYTES || (long) offsets[i] + sizes[i] > buffer.limit()) {
+                    throw new IOException("corrupt profile snapshot file: invalid snapshot " + key + " at " + offsets[i] + " of size " + sizes[i]);
+                }
+
+                indexes.put(key, i);
+            }
+
+            logger.info("opened " + snapshotCount + " profile snapshots in " + path);
+
+            return new SnapshotMap(file, indexes, offsets, sizes);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("corrupt profile snapshot file: " + path, e);
+        }
+    }
+
+    private void addStrings(Map<String, Integer> stringIds) {
+        for (IntCountMap entityMap : entities) {
+            for (int entityId : entityMap.keys()) getStringId(stringIds, Vocabulary.getWord(entityId));
+        }
+
+        for (long activityKey : activities.keys()) {
+            getStringId(stringIds, Vocabulary.getWord(Entities.getActivityVerbId(activityKey)));
+            getStringId(stringIds, Vocabulary.getWord(Entities.getActivityObjectId(activityKey)));
+        }
+
+        for (StatementSnapshot statement : statements) {
+            getStringId(stringIds, statement.summary);
+            getStringId(stringIds, statement.sentence);
+            if (statement.origin != null) getStringId(stringIds, statement.origin);
+        }
+    }
+
+    /**
+     * The number of bytes written by write.
+     *
+     * @return size in bytes
+     */
+    private int getSize() {
+        int size = 0;
+        for (IntCountMap entityMap : entities) size += Integer.BYTES + entityMap.size() * ENTITY_BYTES;
+        size += Integer.BYTES + activities.size() * ACTIVITY_BYTES;
+        size += Integer.BYTES + statements.size() * STATEMENT_BYTES;
+        return size;
+    }
+
+    private void write(DataOutputStream out, Map<String, Integer> stringIds) throws IOException {
+        for (IntCountMap entityMap : entities) {
+            out.writeInt(entityMap.size());
+            for (int entityId : entityMap.keys()) {
+                out.writeInt(stringIds.get(Vocabulary.getWord(entityId)));
+                out.writeInt(entityMap.get(entityId));
+            }
+        }
+
+        out.writeInt(activities.size());
+        for (long activityKey : activities.keys()) {
+            out.writeInt(stringIds.get(Vocabulary.getWord(Entities.getActivityVerbId(activityKey))));
+            out.writeInt(stringIds.get(Vocabulary.getWord(Entities.getActivityObjectId(activityKey))));
+            out.writeInt(activities.get(activityKey));
+        }
+
+        out.writeInt(statements.size());
+        for (StatementSnapshot statement : statements) {
+            out.writeInt(stringIds.get(statement.summary));
+            out.writeInt(stringIds.get(statement.sentence));
+            out.writeInt(statement.origin != null? stringIds.get(statement.origin) : -1);
+            out.writeDouble(statement.lexicalDensity);
+            out.writeInt(statement.qualityPoints);
+            out.writeDouble(statement.quality);
+        }
+    }
+
+    /**
+     * Read the number of items (or bytes) that follow in a buffer.
+     * Counts are checked against the remaining bytes, so that a corrupt file can't cause huge allocations.
+     *
+     * @param buffer the buffer
+     * @param itemBytes the minimum size of an item in bytes
+     * @return count
+     * @throws IOException if the count is negative or the items can't fit in the rest of the buffer
+     */
+    private static int getCount(ByteBuffer buffer, int itemBytes) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * itemBytes > buffer.remaining()) throw new IOException("corrupt profile snapshot file: invalid count " + count + " at position " + (buffer.position() - Integer.BYTES));
+        return count;
+    }
+
+    private static int getStringId(Map<String, Integer> stringIds, String string) {
+        return stringIds.computeIfAbsent(string, s -> stringIds.size());
+    }
+
+    /**
+     * The entities of a specific type found in the statements of the author.
+     *
+     * @param type the relationship of the entities to the author
+     * @return entities
+     */
+    public Set<String> getEntities(EntityType type) {
+        return Entities.toWordSet(entities[type.ordinal()]);
+    }
+
+    /**
+     * How many times an entity of a specific type was found in the statements of the author.
+     *
+     * @param type the relationship of the entity to the author
+     * @param entity the entity
+     * @return count
+     */
+    public int getEntityCount(EntityType type, String entity) {
+        return entities[type.ordinal()].get(Vocabulary.findId(entity));
+    }
+
+    /**
+     * The entities of a specific type along with how many times each was found.
+     *
+     * @param type the relationship of the entities to the author
+     * @return counts by entity
+     */
+    public Map<String, Integer> getEntityCounts(EntityType type) {
+        return Entities.toWordCounts(entities[type.ordinal()]);
+    }
+
+    /**
+     * The activities found in the statements of the author.
+     *
+     * @return activity objects by activity verb
+     */
+    public Map<String, Set<String>> getActivities() {
+        return Entities.toActivityMap(activities);
+    }
+
+    /**
+     * How many times an activity was found in the statements of the author.
+     *
+     * @param activityVerb the verb of the activity
+     * @param activityObject the object of the activity, as found in getActivities()
+     * @return count
+     */
+    public int getActivityCount(String activityVerb, String activityObject) {
+        return Entities.getActivityCount(activities, activityVerb, activityObject);
+    }
+
+    /**
+     * Find entities that have something in common between this snapshot and another profile (or snapshot).
+     *
+     * @param otherProfile the other profile to search in
+     * @return the commonalities
+     */
+    public Set<String> getCommonEntities(EntityProfile otherProfile) {
+        return Entities.getCommonEntities(this, otherProfile);
+    }
+
+    /**
+     * Find activities in common between this snapshot and another profile (or snapshot).
+     *
+     * @param otherProfile the other profile to search in
+     * @return the common activities
+     */
+    public Map<String, Set<String>> getCommonActivities(EntityProfile otherProfile) {
+        return Entities.getCommonActivities(this, otherProfile);
+    }
+
+    @Override
+    public IntCountMap getEntityMap(EntityType type) {
+        return entities[type.ordinal()];
+    }
+
+    @Override
+    public LongCountMap getActivityMap() {
+        return activities;
+    }
+
+    /**
+     * The version of this snapshot. Snapshots never change, so a snapshot restored from a file has the same version
+     * every time it is retrieved from the map returned by read.
+     *
+     * @return version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the interesting statements in order of diminishing quality.
+     *
+     * @return statements
+     */
+    public List<StatementSnapshot> getStatementsByQuality() {
+        return statements;
+    }
+
+    /**
+     * An interesting statement of a profile, reduced to the parts needed for presenting and ranking it.
+     */
+    public static class StatementSnapshot {
+        private final String summary;
+        private final String sentence;
+        private final String origin;
+        private final double lexicalDensity;
+        private final int qualityPoints;
+        private final double quality;
+
+        StatementSnapshot(String summary, String sentence, String origin, double lexicalDensity, int qualityPoints, double quality) {
+            this.summary = summary;
+            this.sentence = sentence;
+            this.origin = origin;
+            this.lexicalDensity = lexicalDensity;
+            this.qualityPoints = qualityPoints;
+            this.quality = quality;
+        }
+
+        public String getSummary() {
+            return summary;
+        }
+
+        public String getSentence() {
+            return sentence;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public double getLexicalDensity() {
+            return lexicalDensity;
+        }
+
+        public int getQualityPoints() {
+            return qualityPoints;
+        }
+
+        public double getQuality() {
+            return quality;
+        }
+
+        @Override
+        public String toString() {
+            return summary;
+        }
+    }
+
+    /**
+     * A mapped snapshot file along with the strings and word ids decoded from it so far.
+     * The strings and word ids are decoded at most a few times when used by several threads at once,
+     * which gives the same values, so the arrays aren't synchronised.
+     */
+    private static class SnapshotFile {
+        private final Path path;
+        private final ByteBuffer buffer;
+        private final int[] stringOffsets;
+        private final String[] strings;
+        private final int[] wordIds;
+        private final long firstVersion;
+
+        SnapshotFile(Path path, ByteBuffer buffer, int[] stringOffsets, long firstVersion) {
+            this.path = path;
+            this.buffer = buffer;
+            this.stringOffsets = stringOffsets;
+            this.firstVersion = firstVersion;
+            strings = new String[stringOffsets.length];
+            wordIds = new int[stringOffsets.length];
+            Arrays.fill(wordIds, -1);
+        }
+
+        /**
+         * A string of the string table.
+         *
+         * @param stringId the id of the string in the file
+         * @return string
+         * @throws IOException if there is no such string
+         */
+        String getString(int stringId) throws IOException {
+            if (stringId < 0 || stringId >= strings.length) throw new IOException("corrupt profile snapshot file: invalid string " + stringId);
+
+            String string = strings[stringId];
+
+            if (string == null) {
+                // the length was checked when the string table was read
+                ByteBuffer stringBuffer = buffer.duplicate();
+                stringBuffer.position(stringOffsets[stringId]);
+                byte[] bytes = new byte[stringBuffer.getInt()];
+                stringBuffer.get(bytes);
+                string = new String(bytes, StandardCharsets.UTF_8);
+                strings[stringId] = string;
+            }
+
+            return string;
+        }
+
+        /**
+         * The id in the Vocabulary of a string of the string table.
+         *
+         * @param stringId the id of the string in the file
+         * @return word id
+         * @throws IOException if there is no such string
+         */
+        int getWordId(int stringId) throws IOException {
+            String string = getString(stringId);
+            if (wordIds[stringId] == -1) wordIds[stringId] = Vocabulary.getId(string);
+            return wordIds[stringId];
+        }
+
+        /**
+         * Decode a snapshot.
+         *
+         * @param index the index of the snapshot in the file
+         * @param offset the position of the snapshot in the file
+         * @param size the size of the snapshot in bytes
+         * @return snapshot
+         * @throws UncheckedIOException if the snapshot is corrupt
+         */
+        ProfileSnapshot getSnapshot(int index, int offset, int size) {
+            ByteBuffer snapshotBuffer = buffer.duplicate();
+            snapshotBuffer.limit(offset + size);
+            snapshotBuffer.position(offset);
+
+            try {
+                return new ProfileSnapshot(snapshotBuffer.slice(), this, firstVersion + index);
+            } catch (IOException | BufferUnderflowException e) {
+                throw new UncheckedIOException(new IOException("corrupt profile snapshot file: " + path, e));
+            }
+        }
+    }
+
+    /**
+     * The read-only map of the snapshots of a file, which decodes a snapshot whenever it is retrieved.
+     */
+    private static class SnapshotMap extends AbstractMap<String, ProfileSnapshot> {
+        private final SnapshotFile file;
+        private final Map<String, Integer> indexes;
+        private final int[] offsets;
+        private final int[] sizes;
+
+        SnapshotMap(SnapshotFile file, Map<String, Integer> indexes, int[] offsets, int[] sizes) {
+            this.file = file;
+            this.indexes = indexes;
+            this.offsets = offsets;
+            this.sizes = sizes;
+        }
+
+        @Override
+        public ProfileSnapshot get(Object key) {
+            Integer index = indexes.get(key);
+            return index != null? file.getSnapshot(index, offsets[index], sizes[index]) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexes.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return indexes.size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(indexes.keySet());
+        }
+
+        @Override
+        public Set<Entry<String, ProfileSnapshot>> entrySet() {
+            return new AbstractSet<Entry<String, ProfileSnapshot>>() {
+                @Override
+                public Iterator<Entry<String, ProfileSnapshot>> iterator() {
+                    Iterator<Entry<String, Integer>> indexIterator = indexes.entrySet().iterator();
+
+                    return new Iterator<Entry<String, ProfileSnapshot>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return indexIterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, ProfileSnapshot> next() {
+                            Entry<String, Integer> index = indexIterator.next();
+                            int i = index.getValue();
+                            return new SimpleImmutableEntry<>(index.getKey(), file.getSnapshot(i, offsets[i], sizes[i]));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return indexes.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package statements.profile;
+
+import statements.core.Statement;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Ranks statements by a key, e.g. lexical density, quality or relevance, with the highest key first.
+ * The key of each statement is calculated once up front rather than in every comparison,
+ * and when only the top statements are needed they are selected using a bounded heap instead of a full sort.
+ * Statements with the same key are kept in the order they were given in.
+ */
+final class Rankings {
+    private Rankings() {
+    }
+
+    /**
+     * Rank statements by a key.
+     *
+     * @param statements the statements to rank
+     * @param key the key of a statement
+     * @param limit the maximum number of statements to return
+     * @return the top statements, highest key first
+     */
+    static List<Statement> rank(Collection<Statement> statements, ToDoubleFunction<Statement> key, int limit) {
+        Statement[] candidates = statements.toArray(new Statement[statements.size()]);
+        double[] keys = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) keys[i] = key.applyAsDouble(candidates[i]);
+
+        int size = Math.max(0, Math.min(limit, candidates.length));
+
+        // the heap keeps the top statements found so far, with the lowest ranked of them at the root
+        int[] heap = new int[size];
+        int heapSize = 0;
+
+        for (int i = 0; i < candidates.length && size > 0; i++) {
+            if (heapSize < size) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, keys);
+            } else if (ranksBefore(i, heap[0], keys)) {
+                heap[0] = i;
+                siftDown(heap, 0, heapSize, keys);
+            }
+        }
+
+        // the heap is emptied from the lowest ranked statement and up
+        Statement[] ranked = new Statement[heapSize];
+        for (int last = heapSize - 1; last >= 0; last--) {
+            ranked[last] = candidates[heap[0]];
+            heap[0] = heap[last];
+            siftDown(heap, 0, last, keys);
+        }
+
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Merge new statements into a ranking.
+     *
+     * @param ranking statements already ranked by the key
+     * @param newStatements the statements to merge into the ranking
+     * @param key the key that the ranking is ranked by
+     * @return the merged ranking
+     */
+    static List<Statement> merge(List<Statement> ranking, Collection<Statement> newStatements, ToDoubleFunction<Statement> key) {
+        if (newStatements.isEmpty()) return ranking;
+
+        List<Statement> rankedStatements = rank(newStatements, key, newStatements.size());
+        List<Statement> mergedRanking = new ArrayList<>(ranking.size() + rankedStatements.size());
+        int i = 0, j = 0;
+        double rankingKey = i < ranking.size()? key.applyAsDouble(ranking.get(i)) : 0;
+        double newKey = key.applyAsDouble(rankedStatements.get(j));
+
+        while (i < ranking.size() || j < rankedStatements.size()) {
+            if (j == rankedStatements.size() || (i < ranking.size() && rankingKey >= newKey)) {
+                mergedRanking.add(ranking.get(i++));
+                if (i < ranking.size()) rankingKey = key.applyAsDouble(ranking.get(i));
+            } else {
+                mergedRanking.add(rankedStatements.get(j++));
+                if (j < rankedStatements.size()) newKey = key.applyAsDouble(rankedStatements.get(j));
+            }
+        }
+
+        return mergedRanking;
+    }
+
+    /**
+     * Whether one statement ranks before another, i.e. has a higher key or the same key and comes first.
+     *
+     * @param a the index of a statement
+     * @param b the index of another statement
+     * @param keys the keys by index
+     * @return true if a ranks before b
+     */
+    private static boolean ranksBefore(int a, int b, double[] keys) {
+        return keys[a] > keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] keys) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(heap[parent], heap[i], keys)) return;
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int heapSize, double[] keys) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) return;
+
+            // the lowest ranked of the two children
+            if (child + 1 < heapSize && ranksBefore(heap[child], heap[child + 1], keys)) child++;
+            if (!ranksBefore(heap[i], heap[child], keys)) return;
+
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+}
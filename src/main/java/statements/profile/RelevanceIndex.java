@@ -0,0 +1,132 @@
+package statements.profile;
+
+import statements.core.*;
+
+import java.util.*;
+
+/**
+ * An index of the interesting statements of a Profile for finding the statements that mention an entity or activity.
+ *
+ * The statements are indexed by the normal compound and head lemma (see Vocabulary) of their top-level components,
+ * so that the statements matching an entity or activity are looked up directly instead of by matching a pattern
+ * against every statement. The lookups give the same statements as the patterns that RelevanceComparator used:
+ * <ul>
+ *     <li>an entity matches like new StatementPattern(new NonVerbPattern().words(entity))</li>
+ *     <li>an activity matches like new StatementPattern(new VerbPattern().words(verb), new NonVerbPattern().words(objects))</li>
+ * </ul>
+ */
+final class RelevanceIndex {
+    private static final int[] NONE = new int[0];
+
+    // postings of statement ordinals by word id, for non-verbs and for non-negated verbs
+    private final Map<Integer, Postings> nonVerbPostings = new HashMap<>();
+    private final Map<Integer, Postings> verbPostings = new HashMap<>();
+
+    // the statements with any non-verb component
+    private final Postings nonVerbStatements = new Postings();
+
+    /**
+     * Add a statement to the index.
+     *
+     * @param ordinal the ordinal of the statement in the profile
+     * @param statement the statement
+     */
+    void add(int ordinal, Statement statement) {
+        Set<StatementComponent> components = statement.getComponents();
+        if (components == null) return;
+
+        for (StatementComponent component : components) {
+            if (!(component instanceof AbstractComponent)) continue;
+            AbstractComponent abstractComponent = (AbstractComponent) component;
+            Class type = abstractComponent.getClass();
+
+            // the patterns match the exact component types
+            if (type.equals(Subject.class) || type.equals(DirectObject.class) || type.equals(IndirectObject.class)) {
+                add(nonVerbPostings, abstractComponent, ordinal);
+                nonVerbStatements.add(ordinal);
+            } else if (type.equals(Verb.class) && (abstractComponent.getFeatures() & Features.NEGATED) == 0) {
+                // verb patterns only match the non-negated form by default
+                add(verbPostings, abstractComponent, ordinal);
+            }
+        }
+    }
+
+    private static void add(Map<Integer, Postings> postingsMap, AbstractComponent component, int ordinal) {
+        add(postingsMap, component.getNormalCompoundId(), ordinal);
+        add(postingsMap, component.getHeadLemmaId(), ordinal);
+    }
+
+    private static void add(Map<Integer, Postings> postingsMap, int wordId, int ordinal) {
+        if (wordId == -1) return;
+
+        Postings postings = postingsMap.get(wordId);
+
+        if (postings == null) {
+            postings = new Postings();
+            postingsMap.put(wordId, postings);
+        }
+
+        postings.add(ordinal);
+    }
+
+    /**
+     * The statements mentioning an entity.
+     *
+     * @param entity the entity
+     * @return ordinals of the statements
+     */
+    int[] findEntity(String entity) {
+        Postings postings = nonVerbPostings.get(Vocabulary.findId(entity.toLowerCase()));
+        return postings != null? postings.toArray() : NONE;
+    }
+
+    /**
+     * The statements mentioning an activity.
+     *
+     * @param activityVerb the verb of the activity
+     * @param activityObjects the objects of the activity, if empty any object will do
+     * @return ordinals of the statements
+     */
+    int[] findActivity(String activityVerb, Set<String> activityObjects) {
+        Postings verbOrdinals = verbPostings.get(Vocabulary.findId(activityVerb.toLowerCase()));
+        if (verbOrdinals == null) return NONE;
+
+        // unlike the verb, the objects are matched as they are
+        BitSet objectOrdinals = new BitSet();
+        if (activityObjects.isEmpty()) {
+            for (int ordinal : nonVerbStatements.toArray()) objectOrdinals.set(ordinal);
+        } else {
+            for (String activityObject : activityObjects) {
+                Postings postings = nonVerbPostings.get(Vocabulary.findId(activityObject));
+                if (postings != null) for (int ordinal : postings.toArray()) objectOrdinals.set(ordinal);
+            }
+        }
+
+        int[] ordinals = verbOrdinals.toArray();
+        int size = 0;
+        for (int ordinal : ordinals) {
+            if (objectOrdinals.get(ordinal)) ordinals[size++] = ordinal;
+        }
+
+        return Arrays.copyOf(ordinals, size);
+    }
+
+    /**
+     * A list of statement ordinals.
+     * The components of a statement are added together, so a statement is only added once by checking the last ordinal.
+     */
+    private static class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) return;
+            if (size == ordinals.length) ordinals = Arrays.copyOf(ordinals, size * 2);
+            ordinals[size++] = ordinal;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ordinals, size);
+        }
+    }
+}